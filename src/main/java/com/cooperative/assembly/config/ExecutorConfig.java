@@ -0,0 +1,62 @@
+package com.cooperative.assembly.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${app.config.executor.vote.admission.corePoolSize:16}")
+    private Integer voteAdmissionCorePoolSize;
+
+    @Value("${app.config.executor.vote.admission.maxPoolSize:32}")
+    private Integer voteAdmissionMaxPoolSize;
+
+    @Value("${app.config.executor.vote.admission.queueCapacity:500}")
+    private Integer voteAdmissionQueueCapacity;
+
+    @Value("${app.config.executor.session.closing.poolSize:8}")
+    private Integer sessionClosingPoolSize;
+
+    @Value("${app.config.executor.session.closing.queueCapacity:100}")
+    private Integer sessionClosingQueueCapacity;
+
+    /**
+     * Bounded executor for vote admission lookups.
+     * When it is saturated the lookup runs on the calling thread, so admission slows down instead of failing.
+     *
+     * @return
+     */
+    @Bean(name="voteAdmissionExecutor")
+    public ThreadPoolTaskExecutor voteAdmissionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(voteAdmissionCorePoolSize);
+        executor.setMaxPoolSize(voteAdmissionMaxPoolSize);
+        executor.setQueueCapacity(voteAdmissionQueueCapacity);
+        executor.setThreadNamePrefix("vote-admission-");
+        executor.setRejectedExecutionHandler(new CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Bounded executor for closing overdue voting sessions in parallel on the safety sweep.
+     * When it is saturated the closing runs on the sweep thread, so the sweep slows down instead of failing.
+     *
+     * @return
+     */
+    @Bean(name="sessionClosingExecutor")
+    public ThreadPoolTaskExecutor sessionClosingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sessionClosingPoolSize);
+        executor.setMaxPoolSize(sessionClosingPoolSize);
+        executor.setQueueCapacity(sessionClosingQueueCapacity);
+        executor.setThreadNamePrefix("session-closing-");
+        executor.setRejectedExecutionHandler(new CallerRunsPolicy());
+        return executor;
+    }
+
+}
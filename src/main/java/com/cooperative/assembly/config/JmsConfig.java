@@ -1,13 +1,16 @@
 package com.cooperative.assembly.config;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jms.annotation.EnableJms;
 import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
 import org.springframework.jms.config.JmsListenerContainerFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 
 import javax.jms.ConnectionFactory;
@@ -25,6 +28,9 @@ public class JmsConfig {
     @Value("${spring.activemq.password}")
     private String password;
 
+    @Value("${app.config.jms.cache.sessionCacheSize:10}")
+    private Integer sessionCacheSize;
+
     @Bean
     public ActiveMQConnectionFactory connectionFactory() {
         if ( "".equals(user) ) {
@@ -33,8 +39,23 @@ public class JmsConfig {
         return new ActiveMQConnectionFactory(user, password, brokerUrl);
     }
 
+    /**
+     * Connection factory sharing a single broker connection and caching its sessions and message producers,
+     * so sending a message does not open and tear down a connection, a session and a producer each time.
+     *
+     * @return
+     */
+    @Bean
+    @Primary
+    public CachingConnectionFactory cachingConnectionFactory() {
+        CachingConnectionFactory cachingConnectionFactory = new CachingConnectionFactory(connectionFactory());
+        cachingConnectionFactory.setSessionCacheSize(sessionCacheSize);
+        cachingConnectionFactory.setCacheProducers(true);
+        return cachingConnectionFactory;
+    }
+
     @Bean
-    public JmsListenerContainerFactory jmsFactoryTopic(ConnectionFactory connectionFactory,
+    public JmsListenerContainerFactory jmsFactoryTopic(@Qualifier("connectionFactory") ConnectionFactory connectionFactory,
                                                        DefaultJmsListenerContainerFactoryConfigurer configurer) {
         DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
         configurer.configure(factory, connectionFactory);
@@ -44,12 +65,24 @@ public class JmsConfig {
 
     @Bean
     public JmsTemplate jmsTemplate() {
-        return new JmsTemplate(connectionFactory());
+        return new JmsTemplate(cachingConnectionFactory());
+    }
+
+    /**
+     * Template sending on transacted sessions, so a batch of messages is committed at once.
+     *
+     * @return
+     */
+    @Bean
+    public JmsTemplate jmsBatchTemplate() {
+        JmsTemplate jmsTemplate = new JmsTemplate(cachingConnectionFactory());
+        jmsTemplate.setSessionTransacted(true);
+        return jmsTemplate;
     }
 
     @Bean
     public JmsTemplate jmsTemplateTopic() {
-        JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory());
+        JmsTemplate jmsTemplate = new JmsTemplate(cachingConnectionFactory());
         jmsTemplate.setPubSubDomain( true );
         return jmsTemplate;
     }
@@ -0,0 +1,59 @@
+package com.cooperative.assembly.config;
+
+import com.cooperative.assembly.scheduling.ScheduledJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class SchedulingConfig {
+
+    @Value("${app.config.scheduler.poolSize:4}")
+    private Integer schedulerPoolSize;
+
+    /**
+     * Scheduler triggering all scheduled methods. Heavy jobs only hand their runs off to their own job threads,
+     * so triggers are never held by a slow run.
+     *
+     * @return
+     */
+    @Bean(name="taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulerPoolSize);
+        scheduler.setThreadNamePrefix("scheduler-");
+        return scheduler;
+    }
+
+    /**
+     * Job closing voting sessions missed by their session bells.
+     *
+     * @return
+     */
+    @Bean(name="sessionSweepJob", destroyMethod="shutdown")
+    public ScheduledJob sessionSweepJob() {
+        return new ScheduledJob("session-sweep");
+    }
+
+    /**
+     * Job publishing voting reports of closed sessions to the message broker.
+     *
+     * @return
+     */
+    @Bean(name="reportDispatchJob", destroyMethod="shutdown")
+    public ScheduledJob reportDispatchJob() {
+        return new ScheduledJob("report-dispatch");
+    }
+
+    /**
+     * Job pushing vote countings to their stream subscribers.
+     *
+     * @return
+     */
+    @Bean(name="countingBroadcastJob", destroyMethod="shutdown")
+    public ScheduledJob countingBroadcastJob() {
+        return new ScheduledJob("counting-broadcast");
+    }
+
+}
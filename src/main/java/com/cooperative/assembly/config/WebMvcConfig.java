@@ -0,0 +1,53 @@
+package com.cooperative.assembly.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Value("${app.config.web.async.poolSize:16}")
+    private Integer asyncPoolSize;
+
+    @Value("${app.config.web.async.queueCapacity:100}")
+    private Integer asyncQueueCapacity;
+
+    @Value("${app.config.web.async.requestTimeout:600000}")
+    private Long asyncRequestTimeout;
+
+    /**
+     * Bounded executor for streamed responses, like vote exports and paper ballot imports.
+     * When it is saturated the response is streamed on the request thread, so streams slow down instead of failing.
+     *
+     * @return
+     */
+    @Bean(name="mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncPoolSize);
+        executor.setMaxPoolSize(asyncPoolSize);
+        executor.setQueueCapacity(asyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Run asynchronous requests on the bounded executor, timing them out after the configured request timeout.
+     * Streams with their own timeout, like vote counting streams, keep it.
+     *
+     * @param configurer
+     */
+    @Override
+    public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(asyncRequestTimeout);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.cooperative.assembly.index;
+
+import com.cooperative.assembly.v1.vote.Vote;
+import com.cooperative.assembly.v1.vote.counting.VoteCountingView;
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassShard;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static java.lang.Boolean.FALSE;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Ensure indexes declared on documents right after startup, instead of waiting for each document first use.
+ * Indexes are built in background, so neither startup nor database is held while they are built.
+ */
+@Log4j2
+@Component
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = asList(VotingAgenda.class, VotingSession.class, Vote.class,
+            VotingSessionCanvass.class, VotingSessionCanvassShard.class, VoteCountingView.class);
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoIndexInitializer(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexesInBackground() {
+        ExecutorService indexExecutor = newSingleThreadExecutor(new CustomizableThreadFactory("mongo-index-"));
+        indexExecutor.execute(this::ensureIndexes);
+        indexExecutor.shutdown();
+    }
+
+    /**
+     * Ensure every index declared on indexed documents, and the partial indexes that can not be declared by annotations.
+     * The report outbox index only holds unpublished sessions, so it still serves the outbox query that skips
+     * dead-lettered reports, whose reportFailed filter can not be part of a partial index and is applied on fetch.
+     */
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                (MongoMappingContext) mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            resolver.resolveIndexFor(ClassTypeInformation.from(document))
+                    .forEach(index -> ensureIndex(index.getCollection(), index));
+        }
+
+        ensureIndex(mongoTemplate.getCollectionName(VotingSession.class), new Index()
+                .on("status", ASC)
+                .on("published", ASC)
+                .named("session_outbox")
+                .background()
+                .partial(PartialIndexFilter.of(where("published").is(FALSE))));
+    }
+
+    /**
+     * Ensure a single index, logging instead of failing when it could not be built.
+     *
+     * @param collection
+     * @param index
+     */
+    private void ensureIndex(final String collection, final IndexDefinition index) {
+        try {
+
+            String name = mongoTemplate.indexOps(collection).ensureIndex(index);
+            log.info("Ensured index {} on {}", name, collection);
+
+        } catch (RuntimeException ex) {
+            log.error("Could not ensure index on {}: {}", collection, index.getIndexKeys(), ex);
+        }
+    }
+
+}
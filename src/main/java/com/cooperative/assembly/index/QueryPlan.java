@@ -0,0 +1,21 @@
+package com.cooperative.assembly.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryPlan {
+
+    private String query;
+    private String collection;
+    private String filter;
+    private List<String> stages;
+    private List<String> indexes;
+    private Boolean collectionScan;
+
+}
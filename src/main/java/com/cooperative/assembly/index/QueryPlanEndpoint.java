@@ -0,0 +1,132 @@
+package com.cooperative.assembly.index;
+
+import com.cooperative.assembly.v1.vote.Vote;
+import com.cooperative.assembly.v1.vote.counting.VoteCountingView;
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassShard;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Actuator endpoint explaining the queries of schedulers and lookups against current indexes,
+ * flagging the queries that are still planned as collection scans.
+ */
+@Component
+@Endpoint(id = "queryplans")
+public class QueryPlanEndpoint {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+    private static final String SAMPLE_ID = "00000000-0000-4000-8000-000000000000";
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public QueryPlanEndpoint(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @ReadOperation
+    public List<QueryPlan> queryPlans() {
+        return buildQueryShapes().stream()
+                .map(this::explain)
+                .collect(toList());
+    }
+
+    /**
+     * Explain a query shape with the query planner, without running it.
+     *
+     * @param shape
+     * @return
+     */
+    protected QueryPlan explain(final QueryShape shape) {
+        String collection = mongoTemplate.getCollectionName(shape.getDocument());
+        Document command = new Document("explain", new Document("find", collection).append("filter", shape.getFilter()))
+                .append("verbosity", "queryPlanner");
+
+        Document result = mongoTemplate.getDb().runCommand(command);
+        Document winningPlan = result.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collectPlanStages(winningPlan, stages, indexes);
+
+        return new QueryPlan(shape.getName(), collection, shape.getFilter().toJson(), stages, indexes, stages.contains(COLLECTION_SCAN));
+    }
+
+    /**
+     * Walk a plan stage and all its input stages, collecting their stage names and used indexes.
+     *
+     * @param plan
+     * @param stages
+     * @param indexes
+     */
+    @SuppressWarnings("unchecked")
+    private void collectPlanStages(final Document plan, final List<String> stages, final List<String> indexes) {
+        if (plan == null) {
+            return;
+        }
+
+        stages.add(plan.getString("stage"));
+        if (plan.containsKey("indexName")) {
+            indexes.add(plan.getString("indexName"));
+        }
+
+        collectPlanStages(plan.get("inputStage", Document.class), stages, indexes);
+        for (String key : asList("inputStages", "shards")) {
+            if (plan.get(key) instanceof List) {
+                ((List<Document>) plan.get(key)).forEach(input -> collectPlanStages(
+                        input.containsKey("winningPlan") ? input.get("winningPlan", Document.class) : input, stages, indexes));
+            }
+        }
+    }
+
+    /**
+     * Query shapes run by schedulers and lookups, with sample values in place of their parameters.
+     *
+     * @return
+     */
+    protected List<QueryShape> buildQueryShapes() {
+        return asList(
+                new QueryShape("closeOverdueSessions", VotingSession.class,
+                        new Document("status", "OPENED").append("closingTime", new Document("$lt", new Date()))),
+                new QueryShape("loadOpenedSessions", VotingSession.class, new Document("status", "OPENED")),
+                new QueryShape("loadClosedSessionsToPublish", VotingSession.class,
+                        new Document("status", "CLOSED").append("published", FALSE).append("reportFailed", new Document("$ne", TRUE))),
+                new QueryShape("findSessionByAgendaId", VotingSession.class, new Document("agenda.$id", SAMPLE_ID)),
+                new QueryShape("findSessionsByClosingBatch", VotingSession.class, new Document("closingBatch", SAMPLE_ID)),
+                new QueryShape("findVotesBySessionId", Vote.class, new Document("sessionId", SAMPLE_ID)),
+                new QueryShape("findVoteByUserAndSession", Vote.class, new Document("userId", "00000000000").append("sessionId", SAMPLE_ID)),
+                new QueryShape("findCanvassBySessionId", VotingSessionCanvass.class, new Document("session.$id", SAMPLE_ID)),
+                new QueryShape("findCanvassShardsBySessionId", VotingSessionCanvassShard.class, new Document("sessionId", SAMPLE_ID)),
+                new QueryShape("findAgendaByTitle", VotingAgenda.class, new Document("title", "agenda-title")),
+                new QueryShape("findCountingViewByAgendaId", VoteCountingView.class, new Document("agendaId", SAMPLE_ID)));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    protected static class QueryShape {
+
+        private String name;
+        private Class<?> document;
+        private Document filter;
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.cooperative.assembly.scheduling;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Background job running on its own thread, so a slow run never delays the other jobs.
+ * A run triggered while the previous one is still running is skipped instead of piling up.
+ */
+@Log4j2
+public class ScheduledJob implements MeterBinder {
+
+    private static final String JOB_TAG = "job";
+
+    @Getter
+    private String name;
+    private ExecutorService executor;
+    private AtomicBoolean running = new AtomicBoolean();
+    private AtomicReference<Runnable> requestedRun = new AtomicReference<>();
+    private AtomicLong lastCompletedTime = new AtomicLong(currentTimeMillis());
+    private AtomicLong lastDurationMillis = new AtomicLong();
+    private LongAdder completedRuns = new LongAdder();
+    private LongAdder failedRuns = new LongAdder();
+    private LongAdder skippedRuns = new LongAdder();
+
+    public ScheduledJob(final String name) {
+        this.name = name;
+        this.executor = newSingleThreadExecutor(new CustomizableThreadFactory(name + "-"));
+    }
+
+    /**
+     * Trigger a run of the job on its own thread, unless the previous run is still running.
+     *
+     * @param task
+     * @return whether the run was triggered or skipped
+     */
+    public Boolean trigger(final Runnable task) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Skipping {} run, since the previous one is still running.", name);
+            skippedRuns.increment();
+            return FALSE;
+        }
+
+        executor.execute(() -> run(task));
+        return TRUE;
+    }
+
+    /**
+     * Request a run of the job on its own thread. When the previous run is still running,
+     * a single further run is started right after it, however many runs were requested meanwhile.
+     *
+     * @param task
+     */
+    public void request(final Runnable task) {
+        requestedRun.set(task);
+        runRequested();
+    }
+
+    private void runRequested() {
+        if (requestedRun.get() == null || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        Runnable task = requestedRun.getAndSet(null);
+        if (task == null) {
+            running.set(false);
+            runRequested();
+            return;
+        }
+
+        executor.execute(() -> run(task));
+    }
+
+    private void run(final Runnable task) {
+        long startTime = currentTimeMillis();
+        try {
+
+            task.run();
+            completedRuns.increment();
+            lastCompletedTime.set(currentTimeMillis());
+
+        } catch (RuntimeException ex) {
+            log.error("Could not complete {} run: ", name, ex);
+            failedRuns.increment();
+        } finally {
+            lastDurationMillis.set(currentTimeMillis() - startTime);
+            running.set(false);
+            runRequested();
+        }
+    }
+
+    /**
+     * Time since the last successful run was completed, growing unbounded when the job is stuck or failing.
+     *
+     * @return
+     */
+    public Long getLagMillis() {
+        return currentTimeMillis() - lastCompletedTime.get();
+    }
+
+    public Boolean isRunning() {
+        return running.get();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        TimeGauge.builder("scheduled.job.lag", this, MILLISECONDS, ScheduledJob::getLagMillis)
+                .description("Time since the last successful run of the job was completed")
+                .tag(JOB_TAG, name)
+                .register(registry);
+        TimeGauge.builder("scheduled.job.duration", lastDurationMillis, MILLISECONDS, AtomicLong::get)
+                .description("Duration of the last run of the job")
+                .tag(JOB_TAG, name)
+                .register(registry);
+        FunctionCounter.builder("scheduled.job.completed", completedRuns, LongAdder::sum)
+                .description("Runs of the job completed successfully")
+                .tag(JOB_TAG, name)
+                .register(registry);
+        FunctionCounter.builder("scheduled.job.failed", failedRuns, LongAdder::sum)
+                .description("Runs of the job that failed")
+                .tag(JOB_TAG, name)
+                .register(registry);
+        FunctionCounter.builder("scheduled.job.skipped", skippedRuns, LongAdder::sum)
+                .description("Runs of the job skipped because the previous one was still running")
+                .tag(JOB_TAG, name)
+                .register(registry);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
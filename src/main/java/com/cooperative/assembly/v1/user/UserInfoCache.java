@@ -0,0 +1,92 @@
+package com.cooperative.assembly.v1.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+@Component
+public class UserInfoCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "userInfo";
+
+    private Cache<String, Optional<UserInfo>> cache;
+
+    public UserInfoCache(@Value("${app.config.cache.user.info.maximumSize:10000}") final Long maximumSize,
+                         @Value("${app.config.cache.user.info.expireAfterWriteSeconds:300}") final Long expireAfterWriteSeconds,
+                         @Value("${app.config.cache.user.info.notFoundExpireAfterWriteSeconds:30}") final Long notFoundExpireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UserInfoExpiry(SECONDS.toNanos(expireAfterWriteSeconds), SECONDS.toNanos(notFoundExpireAfterWriteSeconds)))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get cached user info lookup by CPF. An empty lookup means the user was not found on user-info api.
+     *
+     * @param userId
+     * @return cached lookup or null when there is none
+     */
+    public Optional<UserInfo> get(final String userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    /**
+     * Cache user info lookup by CPF.
+     *
+     * @param userId
+     * @param userInfo
+     */
+    public void put(final String userId, final Optional<UserInfo> userInfo) {
+        cache.put(userId, userInfo);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Expire found users after the configured TTL and not found users after a shorter one.
+     */
+    private static class UserInfoExpiry implements Expiry<String, Optional<UserInfo>> {
+
+        private long foundExpiration;
+        private long notFoundExpiration;
+
+        UserInfoExpiry(final long foundExpiration, final long notFoundExpiration) {
+            this.foundExpiration = foundExpiration;
+            this.notFoundExpiration = notFoundExpiration;
+        }
+
+        @Override
+        public long expireAfterCreate(final String userId, final Optional<UserInfo> userInfo, final long currentTime) {
+            return userInfo.isPresent() ? foundExpiration : notFoundExpiration;
+        }
+
+        @Override
+        public long expireAfterUpdate(final String userId, final Optional<UserInfo> userInfo, final long currentTime, final long currentDuration) {
+            return expireAfterCreate(userId, userInfo, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(final String userId, final Optional<UserInfo> userInfo, final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
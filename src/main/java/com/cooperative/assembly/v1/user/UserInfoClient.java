@@ -12,9 +12,14 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Log4j2
 @Component
@@ -28,13 +33,88 @@ public class UserInfoClient {
 
     protected HttpEntityHelper entityHelper;
     private RestClient client;
+    private UserInfoCache userInfoCache;
+    private ConcurrentMap<String, CompletableFuture<Optional<UserInfo>>> inFlightLookups = new ConcurrentHashMap<>();
 
-    public UserInfoClient(final HttpEntityHelper entityHelper, final RestClient client) {
+    public UserInfoClient(final HttpEntityHelper entityHelper, final RestClient client, final UserInfoCache userInfoCache) {
         this.entityHelper = entityHelper;
         this.client = client;
+        this.userInfoCache = userInfoCache;
     }
 
+    /**
+     * Get user info by CPF from cache, requesting user-info api only when it is not cached yet.
+     * Concurrent lookups of the same CPF share a single in-flight request and its result.
+     *
+     * @param userId
+     * @return
+     */
     public Optional<UserInfo> getUserInfo(final String userId) {
+        Optional<UserInfo> cachedUserInfo = userInfoCache.get(userId);
+        if (cachedUserInfo != null) {
+            log.debug("Found cached user information for CPF: ", userId);
+            return cachedUserInfo;
+        }
+
+        CompletableFuture<Optional<UserInfo>> lookup = new CompletableFuture<>();
+        CompletableFuture<Optional<UserInfo>> inFlightLookup = inFlightLookups.putIfAbsent(userId, lookup);
+        if (inFlightLookup != null) {
+            log.debug("Joining in-flight user information request for CPF: ", userId);
+            return joinLookup(inFlightLookup);
+        }
+
+        try {
+
+            Optional<UserInfo> userInfo = lookupUserInfo(userId);
+            lookup.complete(userInfo);
+            return userInfo;
+
+        } catch (RuntimeException ex) {
+            lookup.completeExceptionally(ex);
+            throw ex;
+
+        } finally {
+            inFlightLookups.remove(userId, lookup);
+        }
+    }
+
+    /**
+     * Check cache again before requesting, since a previous in-flight request may have just finished.
+     *
+     * @param userId
+     * @return
+     */
+    private Optional<UserInfo> lookupUserInfo(final String userId) {
+        Optional<UserInfo> cachedUserInfo = userInfoCache.get(userId);
+        return cachedUserInfo != null ? cachedUserInfo : fetchUserInfo(userId);
+    }
+
+    /**
+     * Wait for an in-flight lookup, rethrowing the same failure of its request.
+     *
+     * @param lookup
+     * @return
+     */
+    private Optional<UserInfo> joinLookup(final CompletableFuture<Optional<UserInfo>> lookup) {
+        try {
+
+            return lookup.join();
+
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Request user info by CPF on user-info api, caching found users and not found ones.
+     *
+     * @param userId
+     * @return
+     */
+    protected Optional<UserInfo> fetchUserInfo(final String userId) {
         try {
 
             String url = this.url
@@ -43,9 +123,13 @@ public class UserInfoClient {
 
             log.debug("Getting user information by rest client on URL: ", url);
             UserInfo userInfo = requestUserInfo(url, userId);
+            userInfoCache.put(userId, of(userInfo));
             return of(userInfo);
 
         } catch (HttpClientErrorException ex) {
+            if (NOT_FOUND.equals(ex.getStatusCode())) {
+                userInfoCache.put(userId, empty());
+            }
             return empty();
         }
     }
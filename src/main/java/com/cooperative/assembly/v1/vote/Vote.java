@@ -1,31 +1,40 @@
 package com.cooperative.assembly.v1.vote;
 
-import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "Vote")
+@CompoundIndexes({
+        @CompoundIndex(name = "vote_session_id_choice", def = "{'sessionId': 1, 'choice': 1}")
+})
 public class Vote {
 
     @Id
     private String id;
     private String userId;
-    @DBRef
-    private VotingSession session;
+    private String sessionId;
+    private VoteSessionSnapshot session;
     private VoteChoice choice;
 
     public Vote(final String id, final String userId, final VotingSession session) {
+        this(id, userId, session, null);
+    }
+
+    public Vote(final String id, final String userId, final VotingSession session, final VoteChoice choice) {
         this.id = id;
         this.userId = userId;
-        this.session = session;
+        this.sessionId = session.getId();
+        this.session = VoteSessionSnapshot.buildSnapshot(session);
+        this.choice = choice;
     }
 
 }
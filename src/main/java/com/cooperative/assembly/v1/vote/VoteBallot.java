@@ -0,0 +1,61 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.error.Error;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteBallot {
+
+    private String userId;
+    private String sessionId;
+    private VoteChoice choice;
+    private Vote vote;
+    private Error error;
+
+    public VoteBallot(final String userId, final String sessionId, final VoteChoice choice) {
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.choice = choice;
+    }
+
+    /**
+     * Accept ballot registering the vote that was built from it
+     *
+     * @param vote
+     */
+    public void accept(final Vote vote) {
+        this.vote = vote;
+    }
+
+    /**
+     * Reject ballot keeping the error that explains why it could not be registered
+     *
+     * @param error
+     */
+    public void reject(final Error error) {
+        this.error = error;
+    }
+
+    /**
+     * Check if ballot was accepted and has a registered vote
+     *
+     * @return
+     */
+    public Boolean isAccepted() {
+        return vote != null && error == null;
+    }
+
+    /**
+     * Check if ballot was not accepted or rejected yet
+     *
+     * @return
+     */
+    public Boolean isPending() {
+        return vote == null && error == null;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.cooperative.assembly.v1.vote;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteBatchRequest {
+
+    @NotEmpty(message = "vote.batch.votes.not.empty")
+    @Size(max = 5000, message = "vote.batch.votes.invalid.size")
+    private List<VoteRequest> votes;
+
+}
@@ -0,0 +1,42 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.error.Error;
+import com.cooperative.assembly.response.ResponseJson;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VoteBatchResponse {
+
+    private Integer index;
+    private String id;
+    private String userId;
+    private String sessionId;
+    private VoteChoice choice;
+    private VoteBatchStatus status;
+    private Error error;
+
+    public static ResponseJson<List<VoteBatchResponse>, VoteBatchSummary> buildResponse(final List<VoteBallot> ballots) {
+        List<VoteBatchResponse> data = new ArrayList<>();
+        for (int index = 0; index < ballots.size(); index++) {
+            data.add(buildItem(index, ballots.get(index)));
+        }
+
+        return new ResponseJson<>(data, VoteBatchSummary.buildSummary(ballots));
+    }
+
+    public static VoteBatchResponse buildItem(final Integer index, final VoteBallot ballot) {
+        String id = ballot.isAccepted() ? ballot.getVote().getId() : null;
+        return new VoteBatchResponse(index, id, ballot.getUserId(), ballot.getSessionId(), ballot.getChoice(),
+                VoteBatchStatus.getByBallot(ballot), ballot.getError());
+    }
+
+}
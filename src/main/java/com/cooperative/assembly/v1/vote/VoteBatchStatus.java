@@ -0,0 +1,13 @@
+package com.cooperative.assembly.v1.vote;
+
+public enum VoteBatchStatus {
+    ACCEPTED,
+    REJECTED;
+
+    public static VoteBatchStatus getByBallot(final VoteBallot ballot) {
+        if (ballot.isAccepted()) {
+            return ACCEPTED;
+        }
+        return REJECTED;
+    }
+}
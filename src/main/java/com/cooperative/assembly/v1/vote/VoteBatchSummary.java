@@ -0,0 +1,36 @@
+package com.cooperative.assembly.v1.vote;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteBatchSummary {
+
+    private Integer totalVotes;
+    private Integer acceptedVotes;
+    private Integer rejectedVotes;
+
+    public static VoteBatchSummary buildSummary(final List<VoteBallot> ballots) {
+        int acceptedVotes = (int) ballots.stream().filter(VoteBallot::isAccepted).count();
+        return new VoteBatchSummary(ballots.size(), acceptedVotes, ballots.size() - acceptedVotes);
+    }
+
+    /**
+     * Add up counts of another batch summary into this one.
+     *
+     * @param summary
+     * @return
+     */
+    public VoteBatchSummary add(final VoteBatchSummary summary) {
+        this.totalVotes += summary.getTotalVotes();
+        this.acceptedVotes += summary.getAcceptedVotes();
+        this.rejectedVotes += summary.getRejectedVotes();
+        return this;
+    }
+
+}
@@ -8,8 +8,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
 
 @Log4j2
 @RestController
@@ -17,11 +27,17 @@ import javax.validation.Valid;
 @Api(tags = "Vote")
 public class VoteController {
 
+    private static final String GZIP_ENCODING = "gzip";
+
     private VoteService service;
+    private VoteExporter exporter;
+    private VoteImporter importer;
 
     @Autowired
-    public VoteController(final VoteService service) {
+    public VoteController(final VoteService service, final VoteExporter exporter, final VoteImporter importer) {
         this.service = service;
+        this.exporter = exporter;
+        this.importer = importer;
     }
 
     @ApiOperation(value = "Register Vote for Cooperative Assembly Agenda")
@@ -36,4 +52,61 @@ public class VoteController {
 
         return ResponseEntity.ok().body(VoteResponse.buildResponse(vote));
     }
+
+    @ApiOperation(value = "Register Batch of Votes for Cooperative Assembly Agendas")
+    @PostMapping(path = "/batch",
+            produces = MediaType.APPLICATION_JSON_UTF8_VALUE,
+            consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseBody
+    public ResponseEntity<ResponseJson<List<VoteBatchResponse>, VoteBatchSummary>> registerBatch(
+            @Valid @RequestBody VoteBatchRequest request) {
+
+        List<VoteBallot> ballots = request.getVotes().stream()
+                .map(vote -> new VoteBallot(vote.getUserId(), vote.getSessionId(), vote.getChoice()))
+                .collect(toList());
+
+        List<VoteBallot> registeredBallots = service.chooseVotes(ballots);
+        log.debug("Saved batch of vote choices from users to voting agendas: ", registeredBallots.size());
+
+        return ResponseEntity.ok().body(VoteBatchResponse.buildResponse(registeredBallots));
+    }
+
+    @ApiOperation(value = "Import Paper Ballots for Cooperative Assembly Agendas")
+    @PostMapping(path = "/import",
+            produces = VoteExportFormat.NDJSON_VALUE,
+            consumes = VoteExportFormat.CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> importBallots(HttpServletRequest request) throws IOException {
+        log.debug("Importing paper ballots from uploaded file");
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(VoteExportFormat.NDJSON.getContentType()))
+                .body(importer.importBallots(request.getInputStream()));
+    }
+
+    @ApiOperation(value = "Export all Votes of Cooperative Assembly Voting Session")
+    @GetMapping(path = "/session/{sessionId}/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable("sessionId") String sessionId,
+            @RequestParam(name = "format", defaultValue = "NDJSON") VoteExportFormat format,
+            @RequestHeader(name = "Accept-Encoding", required = false) String acceptEncoding) {
+
+        StreamingResponseBody export = exporter.exportSessionVotes(sessionId, format);
+        log.debug("Exporting votes of voting session: ", sessionId);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(CONTENT_DISPOSITION, format("attachment; filename=\"votes-%s.%s\"", sessionId, format.getExtension()));
+
+        if (acceptEncoding == null || !acceptEncoding.contains(GZIP_ENCODING)) {
+            return response.body(export);
+        }
+
+        return response.header(CONTENT_ENCODING, GZIP_ENCODING)
+                .body(output -> {
+                    GZIPOutputStream gzip = new GZIPOutputStream(output);
+                    export.writeTo(gzip);
+                    gzip.finish();
+                });
+    }
+
 }
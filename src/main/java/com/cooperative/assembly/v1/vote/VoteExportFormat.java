@@ -0,0 +1,22 @@
+package com.cooperative.assembly.v1.vote;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum VoteExportFormat {
+
+    NDJSON(VoteExportFormat.NDJSON_VALUE, "ndjson"),
+    CSV(VoteExportFormat.CSV_VALUE, "csv");
+
+    /**
+     * Content types as constants, for request mappings that need them at compile time.
+     */
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private String contentType;
+    private String extension;
+
+}
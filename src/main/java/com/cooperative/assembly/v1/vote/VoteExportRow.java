@@ -0,0 +1,34 @@
+package com.cooperative.assembly.v1.vote;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static java.lang.String.format;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteExportRow {
+
+    public static final String CSV_HEADER = "id,userId,sessionId,choice";
+
+    private String id;
+    private String userId;
+    private String sessionId;
+    private VoteChoice choice;
+
+    public static VoteExportRow buildRow(final Vote vote) {
+        return new VoteExportRow(vote.getId(), vote.getUserId(), vote.getSessionId(), vote.getChoice());
+    }
+
+    /**
+     * Build CSV line of exported vote. Fields are ids and choices only, so none of them needs quoting.
+     *
+     * @return
+     */
+    public String toCsv() {
+        return format("%s,%s,%s,%s", id, userId, sessionId, choice);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.v1.voting.session.VotingSessionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import static com.cooperative.assembly.v1.vote.VoteExportFormat.CSV;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Log4j2
+@Component
+public class VoteExporter {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private VoteRepository repository;
+    private VotingSessionService votingSessionService;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public VoteExporter(final VoteRepository repository, final VotingSessionService votingSessionService) {
+        this.repository = repository;
+        this.votingSessionService = votingSessionService;
+    }
+
+    /**
+     * Build export of all votes of a session, streamed from a database cursor straight to the response,
+     * so memory use does not grow with the number of votes.
+     * Session is checked before streaming starts, so a missing one is answered as an error response.
+     * Throw NotFoundReferenceException.class when voting session can not be found.
+     *
+     * @param sessionId
+     * @param format
+     * @return
+     */
+    public StreamingResponseBody exportSessionVotes(final String sessionId, final VoteExportFormat format) {
+        votingSessionService.loadVoteSession(sessionId);
+
+        return output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8), WRITE_BUFFER_SIZE);
+            if (CSV.equals(format)) {
+                writeLine(writer, VoteExportRow.CSV_HEADER);
+            }
+
+            try {
+
+                repository.streamSessionVotes(sessionId, vote -> writeLine(writer, buildLine(VoteExportRow.buildRow(vote), format)));
+
+            } catch (UncheckedIOException ex) {
+                log.error("Could not stream session votes export, client is gone: ", sessionId, ex);
+                throw ex.getCause();
+            }
+
+            writer.flush();
+        };
+    }
+
+    private String buildLine(final VoteExportRow row, final VoteExportFormat format) {
+        if (CSV.equals(format)) {
+            return row.toCsv();
+        }
+
+        try {
+
+            return objectMapper.writeValueAsString(row);
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeLine(final Writer writer, final String line) {
+        try {
+
+            writer.write(line);
+            writer.write('\n');
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.error.Error;
+import com.cooperative.assembly.error.ErrorFactory;
+import com.cooperative.assembly.error.exception.GenericException;
+import com.cooperative.assembly.error.exception.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
+
+@Log4j2
+@Component
+public class VoteImporter {
+
+    private static final String HEADER_PREFIX = "userid";
+    private static final String COLUMN_SEPARATOR = ",";
+    private static final int ROW_COLUMNS = 3;
+
+    @Value("${app.config.vote.import.batchSize:1000}")
+    private Integer batchSize;
+
+    private VoteService service;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public VoteImporter(final VoteService service) {
+        this.service = service;
+    }
+
+    /**
+     * Build import of paper ballots from a CSV of (userId, sessionId, choice) rows, with an optional header.
+     * Rows are parsed as they are read and registered in batches with the same rules of a batch of votes,
+     * and the result of each row is streamed back as a JSON line, indexed by its line on the file,
+     * as soon as its batch is registered, followed by a last line summing up the whole import,
+     * written even when the import is interrupted.
+     *
+     * @param input
+     * @return
+     */
+    public StreamingResponseBody importBallots(final InputStream input) {
+        return output -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, UTF_8));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+            VoteBatchSummary summary = new VoteBatchSummary(0, 0, 0);
+
+            try {
+
+                List<VoteBallot> ballots = new ArrayList<>(batchSize);
+                List<Integer> lines = new ArrayList<>(batchSize);
+                boolean firstRow = true;
+                int lineIndex = -1;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineIndex++;
+                    if (line.trim().isEmpty() || (firstRow && isHeader(line))) {
+                        continue;
+                    }
+
+                    firstRow = false;
+                    ballots.add(parseBallot(line));
+                    lines.add(lineIndex);
+                    if (ballots.size() == batchSize) {
+                        summary.add(importBatch(lines, ballots, writer));
+                        ballots.clear();
+                        lines.clear();
+                    }
+                }
+
+                if (!ballots.isEmpty()) {
+                    summary.add(importBatch(lines, ballots, writer));
+                }
+
+            } finally {
+                writeLine(writer, singletonMap("summary", summary));
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Register a batch of parsed ballots, leaving malformed ones rejected, and stream back the result of each row.
+     * When the batch could not be registered, all its parsed ballots are rejected with the failure and the import goes on.
+     *
+     * @param lines index of the line of each ballot on the file
+     * @param ballots
+     * @param writer
+     * @return summary of the batch
+     * @throws IOException
+     */
+    protected VoteBatchSummary importBatch(final List<Integer> lines, final List<VoteBallot> ballots, final Writer writer) throws IOException {
+        List<VoteBallot> pendingBallots = ballots.stream()
+                .filter(VoteBallot::isPending)
+                .collect(toList());
+
+        if (!pendingBallots.isEmpty()) {
+            try {
+
+                service.chooseVotes(pendingBallots);
+
+            } catch (RuntimeException ex) {
+                log.error("Could not register batch of paper ballots, its rows are rejected: ", lines.get(0), ex);
+                Error error = ex instanceof GenericException ? ((GenericException) ex).getError() : ErrorFactory.errorFromException(ex).get(0);
+                pendingBallots.forEach(ballot -> ballot.reject(error));
+            }
+        }
+
+        for (int index = 0; index < ballots.size(); index++) {
+            writeLine(writer, VoteBatchResponse.buildItem(lines.get(index), ballots.get(index)));
+        }
+        writer.flush();
+
+        log.debug("Imported batch of paper ballots", ballots.size());
+        return VoteBatchSummary.buildSummary(ballots);
+    }
+
+    /**
+     * Parse the columns of a CSV row into a ballot, leaving its validation to the batch of votes.
+     * Rows without the expected columns are rejected right away.
+     *
+     * @param line
+     * @return
+     */
+    protected VoteBallot parseBallot(final String line) {
+        String[] columns = line.split(COLUMN_SEPARATOR, -1);
+        if (columns.length != ROW_COLUMNS) {
+            VoteBallot ballot = new VoteBallot();
+            ballot.reject(new ValidationException("vote.import.row.malformed", "row", line).getError());
+            return ballot;
+        }
+
+        VoteRequest request = new VoteRequest(unquote(columns[0]), unquote(columns[1]), parseChoice(unquote(columns[2])));
+        return new VoteBallot(request.getUserId(), request.getSessionId(), request.getChoice());
+    }
+
+    private Boolean isHeader(final String line) {
+        return unquote(line).toLowerCase().startsWith(HEADER_PREFIX);
+    }
+
+    private VoteChoice parseChoice(final String choice) {
+        try {
+
+            return VoteChoice.valueOf(choice.toUpperCase());
+
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private String unquote(final String column) {
+        return column.trim().replaceAll("^\"|\"$", "");
+    }
+
+    private void writeLine(final Writer writer, final Object value) throws IOException {
+        writer.write(objectMapper.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+}
@@ -4,9 +4,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
 
-public interface VoteRepository extends MongoRepository<Vote, String> {
-
-    List<Vote> findByUserIdAndSessionId(final String userId, final String sessionId);
+public interface VoteRepository extends MongoRepository<Vote, String>, VoteRepositoryCustom {
 
     List<Vote> findBySessionId(final String sessionId);
 
@@ -0,0 +1,30 @@
+package com.cooperative.assembly.v1.vote;
+
+import org.springframework.dao.DataAccessException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface VoteRepositoryCustom {
+
+    /**
+     * Insert all votes with a single unordered bulk write, going on past the ones that could not be written.
+     * Returns the write error of each vote that was not inserted by its vote id, like a DuplicateKeyException
+     * when the user has already voted on the same session. Every other vote was inserted.
+     *
+     * @param votes
+     * @return
+     */
+    Map<String, DataAccessException> insertUnordered(final List<Vote> votes);
+
+    /**
+     * Stream votes of a session from a database cursor, one at a time and with exported fields only.
+     * Cursor is closed once all votes were consumed or the consumer failed.
+     *
+     * @param sessionId
+     * @param consumer
+     */
+    void streamSessionVotes(final String sessionId, final Consumer<Vote> consumer);
+
+}
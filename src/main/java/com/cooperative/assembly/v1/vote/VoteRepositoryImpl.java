@@ -0,0 +1,88 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.mongodb.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toMap;
+import static org.springframework.data.mongodb.core.BulkOperations.BulkMode.UNORDERED;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+public class VoteRepositoryImpl implements VoteRepositoryCustom {
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final int EXPORT_CURSOR_BATCH_SIZE = 1000;
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public VoteRepositoryImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<String, DataAccessException> insertUnordered(final List<Vote> votes) {
+        if (isEmpty(votes)) {
+            return emptyMap();
+        }
+
+        try {
+
+            mongoTemplate.bulkOps(UNORDERED, Vote.class)
+                    .insert(votes)
+                    .execute();
+            return emptyMap();
+
+        } catch (BulkOperationException ex) {
+            List<BulkWriteError> errors = ex.getErrors();
+            if (errors.isEmpty()) {
+                throw ex;
+            }
+
+            return errors.stream()
+                    .collect(toMap(error -> votes.get(error.getIndex()).getId(), this::translateWriteError));
+        }
+    }
+
+    /**
+     * Translate write error of a single vote, so an user that has already voted is told apart from any other failure.
+     *
+     * @param error
+     * @return
+     */
+    private DataAccessException translateWriteError(final BulkWriteError error) {
+        if (error.getCode() == DUPLICATE_KEY_ERROR_CODE) {
+            return new DuplicateKeyException(error.getMessage());
+        }
+
+        return new UncategorizedMongoDbException(error.getMessage(), null);
+    }
+
+    @Override
+    public void streamSessionVotes(final String sessionId, final Consumer<Vote> consumer) {
+        Query query = query(where("sessionId").is(sessionId))
+                .cursorBatchSize(EXPORT_CURSOR_BATCH_SIZE);
+        query.fields()
+                .include("userId")
+                .include("sessionId")
+                .include("choice");
+
+        try (CloseableIterator<Vote> votes = mongoTemplate.stream(query, Vote.class)) {
+            votes.forEachRemaining(consumer);
+        }
+    }
+
+}
@@ -25,7 +25,7 @@ public class VoteRequest {
     private VoteChoice choice;
 
     public String getUserId() {
-        return userId.replaceAll("\\D+","");
+        return userId == null ? null : userId.replaceAll("\\D+","");
     }
 
 }
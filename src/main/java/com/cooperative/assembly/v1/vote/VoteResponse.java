@@ -1,9 +1,7 @@
 package com.cooperative.assembly.v1.vote;
 
 import com.cooperative.assembly.response.ResponseJson;
-import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgendaResponse;
-import com.cooperative.assembly.v1.voting.session.VotingSession;
 import com.cooperative.assembly.v1.voting.session.VotingSessionResponse;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,11 +18,10 @@ public class VoteResponse {
     private VoteChoice choice;
 
     public static ResponseJson<VoteResponse, Void> buildResponse(final Vote vote) {
-        VotingSession session = vote.getSession();
-        VotingAgenda agenda = session.getAgenda();
-        VotingAgendaResponse agendaResponse = new VotingAgendaResponse(agenda.getId(), agenda.getTitle());
+        VoteSessionSnapshot session = vote.getSession();
+        VotingAgendaResponse agendaResponse = new VotingAgendaResponse(session.getAgendaId(), session.getAgendaTitle());
 
-        VotingSessionResponse sessionResponse = new VotingSessionResponse(session.getId(), agendaResponse, session.getOpeningTime(), session.getClosingTime(), session.getStatus());
+        VotingSessionResponse sessionResponse = new VotingSessionResponse(vote.getSessionId(), agendaResponse, session.getOpeningTime(), session.getClosingTime(), session.getStatus());
         VoteResponse data = new VoteResponse(vote.getId(), vote.getUserId(), sessionResponse, vote.getChoice());
         return new ResponseJson<>(data);
     }
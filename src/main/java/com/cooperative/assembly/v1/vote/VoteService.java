@@ -1,21 +1,45 @@
 package com.cooperative.assembly.v1.vote;
 
+import com.cooperative.assembly.error.Error;
+import com.cooperative.assembly.error.ErrorFactory;
+import com.cooperative.assembly.error.exception.GenericException;
 import com.cooperative.assembly.v1.user.User;
 import com.cooperative.assembly.v1.user.UserService;
 import com.cooperative.assembly.v1.user.VotingAbility;
+import com.cooperative.assembly.v1.vote.event.VoteEventPublisher;
 import com.cooperative.assembly.error.exception.ValidationException;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
-import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
 import com.cooperative.assembly.v1.voting.session.VotingSessionService;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassService;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.UUID.randomUUID;
-import static org.springframework.util.CollectionUtils.isEmpty;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 @Log4j2
 @Service
@@ -24,17 +48,30 @@ public class VoteService {
     private VoteRepository repository;
     private UserService userService;
     private VotingSessionService votingSessionService;
+    private VotingSessionCanvassService votingSessionCanvassService;
+    private Executor voteAdmissionExecutor;
+    private VoteEventPublisher voteEventPublisher;
+    private Validator validator;
 
     @Autowired
-    public VoteService(final VoteRepository repository, final UserService userService, final VotingSessionService votingSessionService) {
+    public VoteService(final VoteRepository repository, final UserService userService, final VotingSessionService votingSessionService,
+                       final VotingSessionCanvassService votingSessionCanvassService,
+                       @Qualifier("voteAdmissionExecutor") final Executor voteAdmissionExecutor,
+                       final VoteEventPublisher voteEventPublisher, final Validator validator) {
         this.repository = repository;
         this.userService = userService;
         this.votingSessionService = votingSessionService;
+        this.votingSessionCanvassService = votingSessionCanvassService;
+        this.voteAdmissionExecutor = voteAdmissionExecutor;
+        this.voteEventPublisher = voteEventPublisher;
+        this.validator = validator;
     }
 
     /**
      * Apply vote choice for user on specific voting agenda.
      * Save vote for user that is able to vote and session that is still opened.
+     * A previous vote by the same user on the same session is detected by the unique index when inserting.
+     * Session canvass totalizers are incremented and the vote event is published as soon as the vote is saved.
      *
      * @param userId
      * @param sessionId
@@ -45,40 +82,245 @@ public class VoteService {
         Vote vote = validateAndBuildVote(userId, sessionId);
         vote.setChoice(choice);
 
-        log.debug("Saving vote made by user");
-        return repository.save(vote);
+        Vote savedVote = insertVote(vote);
+        votingSessionCanvassService.incrementVotes(asList(savedVote));
+        voteEventPublisher.publish(asList(savedVote));
+        return savedVote;
+    }
+
+    /**
+     * Insert vote made by user.
+     * Throw ValidationException when user has already voted on the same session.
+     *
+     * @param vote
+     * @return
+     */
+    private Vote insertVote(final Vote vote) {
+        try {
+
+            log.debug("Saving vote made by user");
+            return repository.insert(vote);
+
+        } catch (DuplicateKeyException ex) {
+            log.error("Found previous vote on this session by the same user");
+            throw buildAlreadyVotedException(vote.getUserId(), vote.getSessionId());
+        }
+    }
+
+    /**
+     * Apply vote choices from a batch of ballots, like the ones collected offline by polling-station kiosks.
+     * Ballots are validated with the same rules of a single vote, starting by the format of each ballot,
+     * so a malformed ballot is rejected alone without failing the whole batch. Each session and user is loaded only once,
+     * looked up concurrently on the vote admission executor, and all accepted votes are saved together on a single unordered bulk insert.
+     * Previous votes by the same user on the same session are detected by the unique index when inserting.
+     * Session canvass totalizers are incremented once by session with all accepted votes, and their vote events are published.
+     * Rejected ballots keep the error that explains why they could not be registered.
+     *
+     * @param ballots
+     * @return
+     */
+    public List<VoteBallot> chooseVotes(final List<VoteBallot> ballots) {
+        rejectMalformedBallots(ballots);
+        rejectRepeatedBallots(ballots);
+        Map<String, VotingSession> sessions = loadBallotReferences(ballots, VoteBallot::getSessionId, this::loadVotingSession);
+        Map<String, User> users = loadBallotReferences(ballots, VoteBallot::getUserId, this::loadUser);
+
+        List<Vote> votes = new ArrayList<>();
+        for (VoteBallot ballot : pendingBallots(ballots)) {
+            User user = users.get(ballot.getUserId());
+            VotingSession session = sessions.get(ballot.getSessionId());
+
+            Vote vote = new Vote(randomUUID().toString(), user.getId(), session, ballot.getChoice());
+            ballot.accept(vote);
+            votes.add(vote);
+        }
+
+        log.debug("Saving {} votes made by users in bulk", votes.size());
+        Map<String, DataAccessException> writeErrors = repository.insertUnordered(votes);
+        rejectUnwrittenBallots(ballots, writeErrors);
+
+        List<Vote> acceptedVotes = ballots.stream()
+                .filter(VoteBallot::isAccepted)
+                .map(VoteBallot::getVote)
+                .collect(toList());
+        votingSessionCanvassService.incrementVotes(acceptedVotes);
+        voteEventPublisher.publish(acceptedVotes);
+        return ballots;
     }
 
     /**
      * Validate and build vote object by agenda to save user choice.
+     * User and session are loaded concurrently, so admission takes as long as the slowest lookup.
      *
      * @param userId
      * @param sessionId
      * @return
      */
     protected Vote validateAndBuildVote(final String userId, final String sessionId) {
-        if (hasUserAlreadyVotedOnSession(userId, sessionId)) {
-            log.error("Found previous vote on this session by the same user");
-            throw new ValidationException("vote.already.exists", "userId|sessionId", format("%s|%s", userId, sessionId));
+        CompletableFuture<User> user = supplyAsync(() -> loadUser(userId), voteAdmissionExecutor);
+        CompletableFuture<VotingSession> session = supplyAsync(() -> loadVotingSession(sessionId), voteAdmissionExecutor);
+        awaitLookups(user, session);
+
+        String id = randomUUID().toString();
+        return new Vote(id, user.join().getId(), session.join());
+    }
+
+    /**
+     * Wait until all lookups are done, throwing the first lookup failure as soon as it happens
+     * without waiting for the other ones.
+     *
+     * @param lookups
+     */
+    private void awaitLookups(final CompletableFuture<?>... lookups) {
+        CompletableFuture<Void> admission = new CompletableFuture<>();
+        for (CompletableFuture<?> lookup : lookups) {
+            lookup.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    admission.completeExceptionally(ex);
+                }
+            });
         }
+        allOf(lookups).thenRun(() -> admission.complete(null));
 
-        User user = loadUser(userId);
-        VotingSession session = loadVotingSession(sessionId);
+        try {
 
-        String id = randomUUID().toString();
-        return new Vote(id, user.getId(), session);
+            admission.join();
+
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Reject every pending ballot whose format does not match the rules of a single vote request,
+     * keeping the error of its first violation.
+     *
+     * @param ballots
+     */
+    private void rejectMalformedBallots(final List<VoteBallot> ballots) {
+        for (VoteBallot ballot : pendingBallots(ballots)) {
+            Set<ConstraintViolation<VoteRequest>> violations =
+                    validator.validate(new VoteRequest(ballot.getUserId(), ballot.getSessionId(), ballot.getChoice()));
+            if (!violations.isEmpty()) {
+                ConstraintViolation<VoteRequest> violation = violations.iterator().next();
+                log.error("Found malformed vote on this batch", violation.getPropertyPath());
+                ballot.reject(new ValidationException(violation.getMessage(), violation.getPropertyPath().toString(),
+                        violation.getInvalidValue()).getError());
+            }
+        }
+    }
+
+    /**
+     * Reject every ballot repeating an user and session pair that was already found before on the same batch.
+     *
+     * @param ballots
+     */
+    private void rejectRepeatedBallots(final List<VoteBallot> ballots) {
+        Set<String> voters = new HashSet<>();
+        for (VoteBallot ballot : ballots) {
+            if (!voters.add(format("%s|%s", ballot.getUserId(), ballot.getSessionId()))) {
+                log.error("Found repeated vote on this batch by the same user");
+                ballot.reject(buildAlreadyVotedException(ballot.getUserId(), ballot.getSessionId()).getError());
+            }
+        }
     }
 
     /**
-     * List all votes registered for specific userId and agendaId relationship.
+     * Reject every accepted ballot whose vote was not inserted, keeping the error of its own write.
+     * Ballots of users that have already voted on their sessions are rejected as already voted.
+     *
+     * @param ballots
+     * @param writeErrors write errors by vote id
+     */
+    private void rejectUnwrittenBallots(final List<VoteBallot> ballots, final Map<String, DataAccessException> writeErrors) {
+        Map<String, VoteBallot> acceptedBallots = ballots.stream()
+                .filter(VoteBallot::isAccepted)
+                .collect(toMap(ballot -> ballot.getVote().getId(), identity()));
+
+        writeErrors.forEach((voteId, ex) -> {
+            VoteBallot ballot = acceptedBallots.get(voteId);
+            if (ex instanceof DuplicateKeyException) {
+                log.error("Found previous vote on this session by the same user");
+                ballot.reject(buildAlreadyVotedException(ballot.getUserId(), ballot.getSessionId()).getError());
+            } else {
+                log.error("Could not save vote on this batch", ex);
+                ballot.reject(ErrorFactory.errorFromException(ex).get(0));
+            }
+        });
+    }
+
+    /**
+     * Load once each reference (like user or session) required by pending ballots.
+     * References are looked up concurrently, so loading takes as long as the slowest lookup.
+     * Reject all ballots related to a reference that could not be loaded or validated.
+     *
+     * @param ballots
+     * @param key
+     * @param loader
+     * @return
+     */
+    private <T> Map<String, T> loadBallotReferences(final List<VoteBallot> ballots, final Function<VoteBallot, String> key,
+                                                    final Function<String, T> loader) {
+        Map<String, List<VoteBallot>> referenceBallots = pendingBallots(ballots).stream()
+                .collect(groupingBy(key));
+        Map<String, CompletableFuture<T>> lookups = new HashMap<>();
+        referenceBallots.keySet()
+                .forEach(id -> lookups.put(id, supplyAsync(() -> loader.apply(id), voteAdmissionExecutor)));
+
+        Map<String, T> references = new HashMap<>();
+        referenceBallots.forEach((id, ballotsByReference) -> {
+            try {
+
+                references.put(id, lookups.get(id).join());
+
+            } catch (CompletionException ex) {
+                Error error = buildBallotError(ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex);
+                ballotsByReference.forEach(ballot -> ballot.reject(error));
+            }
+        });
+
+        return references;
+    }
+
+    /**
+     * List ballots that was not accepted or rejected yet.
+     *
+     * @param ballots
+     * @return
+     */
+    private List<VoteBallot> pendingBallots(final List<VoteBallot> ballots) {
+        return ballots.stream()
+                .filter(VoteBallot::isPending)
+                .collect(toList());
+    }
+
+    /**
+     * Build ballot rejection error from a GenericException or any non-expected exception.
+     *
+     * @param ex
+     * @return
+     */
+    private Error buildBallotError(final RuntimeException ex) {
+        if (ex instanceof GenericException) {
+            return ((GenericException) ex).getError();
+        }
+
+        log.error("Could not validate ballot", ex);
+        return ErrorFactory.errorFromException(ex).get(0);
+    }
+
+    /**
+     * Build ValidationException for user that has already voted on session.
      *
      * @param userId
      * @param sessionId
      * @return
      */
-    private Boolean hasUserAlreadyVotedOnSession(final String userId, final String sessionId) {
-        List<Vote> votes = repository.findByUserIdAndSessionId(userId, sessionId);
-        return !isEmpty(votes);
+    private ValidationException buildAlreadyVotedException(final String userId, final String sessionId) {
+        return new ValidationException("vote.already.exists", "userId|sessionId", format("%s|%s", userId, sessionId));
     }
 
     /**
@@ -110,23 +352,6 @@ public class VoteService {
         return ability.isUserUnableToVote();
     }
 
-    /**
-     * Apply vote choice on session canvass by affirmative or negative choice.
-     *
-     * @param canvass
-     * @param vote
-     */
-    private void applyChoice(final VotingSessionCanvass canvass, final Vote vote) {
-        VoteChoice choice = vote.getChoice();
-        if (choice.isAffirmative()) {
-            canvass.incrementAffirmative();
-        }
-
-        if (choice.isNegative()) {
-            canvass.incrementNegative();
-        }
-    }
-
     /**
      * Load voting session by agendaId for apply vote.
      * Check if voting session is still opened before vote.
@@ -145,14 +370,4 @@ public class VoteService {
         return session;
     }
 
-    /**
-     * List all votes from a voting session.
-     *
-     * @param session
-     * @return
-     */
-    public List<Vote> getSessionVotes(VotingSession session) {
-        return repository.findBySessionId(session.getId());
-    }
-
 }
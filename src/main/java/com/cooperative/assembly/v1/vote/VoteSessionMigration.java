@@ -0,0 +1,137 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Migrate votes saved with a session reference to the plain session id and snapshot.
+ * The unique user and session index is ensured before the web server starts accepting votes,
+ * since it is the only guard against double votes. Legacy votes are migrated once the application is started.
+ */
+@Log4j2
+@Component
+public class VoteSessionMigration implements SmartInitializingSingleton, ApplicationRunner {
+
+    private static final String LEGACY_SESSION_REFERENCE = "session.$id";
+    private static final List<String> LEGACY_INDEXES = asList("vote_user_session", "vote_session_choice");
+    private static final String USER_SESSION_INDEX = "vote_user_session_id";
+
+    private MongoTemplate mongoTemplate;
+
+    public VoteSessionMigration(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureUserSessionIndex();
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        migrateLegacyVotes();
+        dropLegacyIndexes();
+    }
+
+    /**
+     * Replace the session reference of votes saved before the plain session id field
+     * by the session id and its snapshot. Votes already migrated are never matched again,
+     * so running it on every startup is harmless.
+     */
+    protected void migrateLegacyVotes() {
+        MongoCollection<Document> votes = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Vote.class));
+        Document legacyVotes = new Document("sessionId", new Document("$exists", false))
+                .append(LEGACY_SESSION_REFERENCE, new Document("$exists", true));
+
+        List<String> sessionIds = votes.distinct(LEGACY_SESSION_REFERENCE, legacyVotes, String.class).into(new ArrayList<>());
+        for (String sessionId : sessionIds) {
+            migrateLegacySessionVotes(votes, legacyVotes, sessionId);
+        }
+    }
+
+    /**
+     * Update all legacy votes of a single session at once.
+     *
+     * @param votes
+     * @param legacyVotes
+     * @param sessionId
+     */
+    private void migrateLegacySessionVotes(final MongoCollection<Document> votes, final Document legacyVotes, final String sessionId) {
+        VotingSession session = mongoTemplate.findById(sessionId, VotingSession.class);
+        if (session == null) {
+            log.error("Could not find session of legacy votes: ", sessionId);
+            return;
+        }
+
+        Document snapshot = new Document();
+        mongoTemplate.getConverter().write(VoteSessionSnapshot.buildSnapshot(session), snapshot);
+        snapshot.remove("_class");
+
+        Document sessionVotes = new Document(legacyVotes).append(LEGACY_SESSION_REFERENCE, sessionId);
+        Document update = new Document("$set", new Document("sessionId", sessionId).append("session", snapshot));
+
+        try {
+
+            UpdateResult result = votes.updateMany(sessionVotes, update);
+            log.info("Migrated {} legacy votes of session {}", result.getModifiedCount(), sessionId);
+
+        } catch (RuntimeException ex) {
+            log.error("Could not migrate legacy votes of session {}, they are left to next startup: ", sessionId, ex);
+        }
+    }
+
+    /**
+     * Drop indexes built over the former session reference.
+     */
+    protected void dropLegacyIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Vote.class);
+        for (IndexInfo index : indexOperations.getIndexInfo()) {
+            if (LEGACY_INDEXES.contains(index.getName())) {
+                log.info("Dropping legacy vote index: {}", index.getName());
+                indexOperations.dropIndex(index.getName());
+            }
+        }
+    }
+
+    /**
+     * Ensure a single vote per user on each session. It is partial over the session id,
+     * so legacy votes that still have no session id never collide on it.
+     * When it can not be built, like when duplicated votes are already stored, startup fails,
+     * so a node never accepts votes without its only guard against double votes.
+     */
+    protected void ensureUserSessionIndex() {
+        try {
+
+            mongoTemplate.indexOps(Vote.class).ensureIndex(new Index()
+                    .on("userId", ASC)
+                    .on("sessionId", ASC)
+                    .named(USER_SESSION_INDEX)
+                    .unique()
+                    .partial(PartialIndexFilter.of(where("sessionId").exists(true))));
+
+        } catch (RuntimeException ex) {
+            log.error("Could not ensure unique vote index {}, duplicated votes must be resolved before starting: ", USER_SESSION_INDEX, ex);
+            throw new IllegalStateException("Could not ensure unique vote index " + USER_SESSION_INDEX, ex);
+        }
+    }
+
+}
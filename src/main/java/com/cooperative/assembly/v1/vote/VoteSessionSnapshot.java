@@ -0,0 +1,30 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteSessionSnapshot {
+
+    private String agendaId;
+    private String agendaTitle;
+    private LocalDateTime openingTime;
+    private LocalDateTime closingTime;
+    private VotingSessionStatus status;
+    private Integer canvassShards;
+
+    public static VoteSessionSnapshot buildSnapshot(final VotingSession session) {
+        VotingAgenda agenda = session.getAgenda();
+        return new VoteSessionSnapshot(agenda.getId(), agenda.getTitle(), session.getOpeningTime(),
+                session.getClosingTime(), session.getStatus(), session.getCanvassShards());
+    }
+
+}
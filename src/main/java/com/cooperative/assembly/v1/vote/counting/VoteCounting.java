@@ -4,9 +4,13 @@ import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.util.DigestUtils;
 
 import java.time.LocalDateTime;
 
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,4 +24,24 @@ public class VoteCounting {
     private LocalDateTime closingTime;
     private VotingSessionStatus session;
 
+    /**
+     * Vote counting of a closed session is final and can never change again.
+     *
+     * @return
+     */
+    public boolean isClosed() {
+        return CLOSED.equals(session);
+    }
+
+    /**
+     * Build a strong entity tag from every vote counting field, so a final vote counting always gets the same tag.
+     *
+     * @return
+     */
+    public String buildETag() {
+        String content = String.join("|", agenda, String.valueOf(totalVotes), String.valueOf(affirmativeVotes),
+                String.valueOf(negativeVotes), String.valueOf(openingTime), String.valueOf(closingTime), String.valueOf(session));
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(UTF_8)) + "\"";
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import com.cooperative.assembly.scheduling.ScheduledJob;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Log4j2
+@Component
+public class VoteCountingBroadcaster {
+
+    private static final String COUNTING_EVENT = "counting";
+
+    private VoteCountingService service;
+    private Long streamTimeout;
+    private ScheduledJob broadcastJob;
+    private ConcurrentMap<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, VoteCounting> lastCountings = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VoteCountingBroadcaster(final VoteCountingService service,
+                                   @Value("${app.config.vote.counting.stream.timeoutMillis:1800000}") final Long streamTimeout,
+                                   @Qualifier("countingBroadcastJob") final ScheduledJob broadcastJob) {
+        this.service = service;
+        this.streamTimeout = streamTimeout;
+        this.broadcastJob = broadcastJob;
+    }
+
+    /**
+     * Subscribe to vote counting events of an agenda, starting by its current vote counting.
+     * Throw NotFoundReferenceException.class when there is no voting session for the agenda.
+     *
+     * @param agendaId
+     * @return
+     */
+    public SseEmitter subscribe(final String agendaId) {
+        VoteCounting counting = lastCountings.computeIfAbsent(agendaId, service::getVoteCounting);
+
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        emitter.onCompletion(() -> unsubscribe(agendaId, emitter));
+        emitter.onTimeout(() -> unsubscribe(agendaId, emitter));
+        subscribers.computeIfAbsent(agendaId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+
+        send(agendaId, emitter, counting);
+        return emitter;
+    }
+
+    /**
+     * Trigger vote counting broadcast once per interval on its own job thread,
+     * so blocking sends to slow subscribers never hold the shared scheduler.
+     * The broadcast is skipped while the previous one is still running.
+     */
+    @Scheduled(fixedDelayString = "${app.config.vote.counting.stream.intervalMillis:1000}")
+    public void scheduleVoteCountingsBroadcast() {
+        broadcastJob.trigger(this::broadcastVoteCountings);
+    }
+
+    /**
+     * Count votes of every subscribed agenda, however many subscribers it has.
+     * Only changed vote countings are pushed, and subscribers of closed sessions are completed after the final one.
+     */
+    public void broadcastVoteCountings() {
+        subscribers.keySet().forEach(this::broadcastVoteCounting);
+    }
+
+    /**
+     * Push vote counting of an agenda to all its subscribers when it changed since the last push.
+     *
+     * @param agendaId
+     */
+    protected void broadcastVoteCounting(final String agendaId) {
+        try {
+
+            VoteCounting counting = service.getVoteCounting(agendaId);
+            VoteCounting lastCounting = lastCountings.put(agendaId, counting);
+            if (!counting.equals(lastCounting)) {
+                subscribers.getOrDefault(agendaId, new CopyOnWriteArrayList<>())
+                        .forEach(emitter -> send(agendaId, emitter, counting));
+            }
+
+            if (counting.isClosed()) {
+                completeSubscribers(agendaId);
+            }
+
+        } catch (RuntimeException ex) {
+            log.error("Could not broadcast vote counting for agenda: ", agendaId, ex);
+        }
+    }
+
+    /**
+     * Send vote counting event to a single subscriber, dropping it when it is gone.
+     *
+     * @param agendaId
+     * @param emitter
+     * @param counting
+     */
+    private void send(final String agendaId, final SseEmitter emitter, final VoteCounting counting) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(COUNTING_EVENT)
+                    .data(VoteCountingResponse.buildResponse(counting), MediaType.APPLICATION_JSON_UTF8));
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping gone vote counting subscriber for agenda: ", agendaId);
+            unsubscribe(agendaId, emitter);
+        }
+    }
+
+    private void completeSubscribers(final String agendaId) {
+        List<SseEmitter> emitters = subscribers.remove(agendaId);
+        lastCountings.remove(agendaId);
+        if (emitters != null) {
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    private void unsubscribe(final String agendaId, final SseEmitter emitter) {
+        subscribers.computeIfPresent(agendaId, (id, emitters) -> {
+            emitters.remove(emitter);
+            if (emitters.isEmpty()) {
+                lastCountings.remove(agendaId);
+                return null;
+            }
+            return emitters;
+        });
+    }
+
+}
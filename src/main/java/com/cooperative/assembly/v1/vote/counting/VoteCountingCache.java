@@ -0,0 +1,52 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Final vote countings of closed sessions by agenda id. They never change once session is closed,
+ * so they are only evicted by size.
+ */
+@Component
+public class VoteCountingCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "closedVoteCounting";
+
+    private Cache<String, VoteCounting> cache;
+
+    public VoteCountingCache(@Value("${app.config.cache.vote.counting.closed.maximumSize:10000}") final Long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get final vote counting of a closed session by agenda id.
+     *
+     * @param agendaId
+     * @return cached vote counting or null when there is none
+     */
+    public VoteCounting get(final String agendaId) {
+        return cache.getIfPresent(agendaId);
+    }
+
+    public void put(final String agendaId, final VoteCounting counting) {
+        cache.put(agendaId, counting);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+}
@@ -5,9 +5,11 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 
@@ -17,11 +19,15 @@ import javax.validation.Valid;
 @Api(tags = "Vote Counting")
 public class VoteCountingController {
 
+    private static final String CLOSED_COUNTING_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     private VoteCountingService service;
+    private VoteCountingBroadcaster broadcaster;
 
     @Autowired
-    public VoteCountingController(final VoteCountingService service) {
+    public VoteCountingController(final VoteCountingService service, final VoteCountingBroadcaster broadcaster) {
         this.service = service;
+        this.broadcaster = broadcaster;
     }
 
     @ApiOperation(value = "Get Vote Counting for Cooperative Assembly Agenda")
@@ -34,7 +40,22 @@ public class VoteCountingController {
         VoteCounting counting = service.getVoteCounting(request.getAgendaId());
         log.debug("Builded vote counting report for voting agenda ", counting);
 
+        if (counting.isClosed()) {
+            return ResponseEntity.ok()
+                    .eTag(counting.buildETag())
+                    .header(HttpHeaders.CACHE_CONTROL, CLOSED_COUNTING_CACHE_CONTROL)
+                    .body(VoteCountingResponse.buildResponse(counting));
+        }
+
         return ResponseEntity.ok().body(VoteCountingResponse.buildResponse(counting));
     }
 
+    @ApiOperation(value = "Stream Vote Counting for Cooperative Assembly Agenda")
+    @GetMapping(path = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamVoteCounting(@Valid VoteCountingRequest request) {
+
+        log.debug("Subscribing to vote counting stream for voting agenda ", request.getAgendaId());
+        return broadcaster.subscribe(request.getAgendaId());
+    }
+
 }
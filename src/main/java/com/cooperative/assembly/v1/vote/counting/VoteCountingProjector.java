@@ -0,0 +1,76 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import com.cooperative.assembly.v1.voting.session.VotingSessionClosedEvent;
+import com.cooperative.assembly.v1.voting.session.VotingSessionOpenedEvent;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassFlushedEvent;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Materialize vote counting views from session transitions and counted votes,
+ * so vote counting reads never recompute nor write anything.
+ */
+@Log4j2
+@Component
+public class VoteCountingProjector {
+
+    private VoteCountingViewRepository repository;
+
+    @Autowired
+    public VoteCountingProjector(final VoteCountingViewRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Create an empty vote counting view as soon as a session is opened.
+     *
+     * @param event
+     */
+    @EventListener
+    public void onVotingSessionOpened(final VotingSessionOpenedEvent event) {
+        try {
+
+            log.debug("Creating vote counting view for opened session: ", event.getSession().getId());
+            repository.save(VoteCountingView.buildView(event.getSession()));
+
+        } catch (RuntimeException ex) {
+            log.error("Could not create vote counting view, session is counted from its canvass: ", event.getSession().getId(), ex);
+        }
+    }
+
+    /**
+     * Increment vote counting view by votes flushed to session canvass.
+     *
+     * @param event
+     */
+    @EventListener
+    public void onVotingSessionCanvassFlushed(final VotingSessionCanvassFlushedEvent event) {
+        try {
+
+            repository.incrementVotes(event.getSessionId(), event.getAffirmativeVotes(), event.getNegativeVotes());
+
+        } catch (RuntimeException ex) {
+            log.error("Could not increment vote counting view, it is fixed when session closes: ", event.getSessionId(), ex);
+        }
+    }
+
+    /**
+     * Replace vote counting view by the final totalizers of a closed session canvass.
+     *
+     * @param event
+     */
+    @EventListener
+    public void onVotingSessionClosed(final VotingSessionClosedEvent event) {
+        try {
+
+            log.debug("Closing vote counting view for session: ", event.getSession().getId());
+            repository.save(VoteCountingView.buildView(event.getSession(), event.getCanvass()));
+
+        } catch (RuntimeException ex) {
+            log.error("Could not close vote counting view: ", event.getSession().getId(), ex);
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.cooperative.assembly.v1.vote.counting;
 
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.report.VotingReport;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
 import com.cooperative.assembly.v1.voting.session.VotingSessionService;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
@@ -9,28 +10,83 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.time.LocalDateTime.now;
+
 @Log4j2
 @Service
 public class VoteCountingService {
 
     private VotingSessionService votingSessionService;
     private VotingSessionCanvassService votingSessionCanvassService;
+    private VoteCountingViewRepository viewRepository;
+    private VoteCountingCache closedCountingCache;
 
     @Autowired
-    public VoteCountingService(final VotingSessionService votingSessionService, final VotingSessionCanvassService votingSessionCanvassService) {
+    public VoteCountingService(final VotingSessionService votingSessionService, final VotingSessionCanvassService votingSessionCanvassService,
+                               final VoteCountingViewRepository viewRepository, final VoteCountingCache closedCountingCache) {
         this.votingSessionService = votingSessionService;
         this.votingSessionCanvassService = votingSessionCanvassService;
+        this.viewRepository = viewRepository;
+        this.closedCountingCache = closedCountingCache;
     }
 
     /**
-     * Load data from voting session by agendaId to publish results from voting.
+     * Load vote counting by agendaId. Final vote countings of closed sessions are served from memory.
      *
      * @param agendaId
      * @return
      */
     public VoteCounting getVoteCounting(final String agendaId) {
+        VoteCounting closedCounting = closedCountingCache.get(agendaId);
+        if (closedCounting != null) {
+            return closedCounting;
+        }
+
+        VoteCounting counting = loadVoteCounting(agendaId);
+        if (counting.isClosed()) {
+            closedCountingCache.put(agendaId, counting);
+        }
+
+        return counting;
+    }
+
+    /**
+     * Load vote counting by agendaId from its vote counting view, without recomputing nor writing anything.
+     * Sessions opened before vote counting views existed are counted from their session canvass, as well as
+     * sessions past their closing time whose view was never closed, like when their canvass could not be finalized
+     * by the sweep or their closed view could not be saved.
+     *
+     * @param agendaId
+     * @return
+     */
+    protected VoteCounting loadVoteCounting(final String agendaId) {
+        Optional<VoteCountingView> view = viewRepository.findByAgendaId(agendaId);
+        if (view.isPresent() && !isUnclosedView(view.get())) {
+            return buildVoteCounting(view.get());
+        }
+
+        return countVoteSession(agendaId);
+    }
+
+    /**
+     * Load data from voting session by agendaId to publish results from voting.
+     * Closed sessions are counted from the voting report written with their final canvass, when there is one.
+     *
+     * @param agendaId
+     * @return
+     */
+    protected VoteCounting countVoteSession(final String agendaId) {
         log.debug("Finding voting session by agendaId: ", agendaId);
         VotingSession session = votingSessionService.loadVoteSessionByAgenda(agendaId);
+        VotingReport report = session.getReport();
+        if (report != null) {
+            return new VoteCounting(report.getTitle(), report.getTotalVotes(), report.getAffirmativeVotes(),
+                    report.getNegativeVotes(), session.getOpeningTime(), session.getClosingTime(), session.getStatus());
+        }
+
         VotingSessionCanvass canvass = votingSessionCanvassService.reloadVotingSessionCanvass(session);
         VotingAgenda agenda = session.getAgenda();
 
@@ -38,4 +94,19 @@ public class VoteCountingService {
                 canvass.getNegativeVotes(), session.getOpeningTime(), session.getClosingTime(), session.getStatus());
     }
 
+    /**
+     * Check if vote counting view is still opened past its session closing time, so it is no longer trusted.
+     *
+     * @param view
+     * @return
+     */
+    private boolean isUnclosedView(final VoteCountingView view) {
+        return OPENED.equals(view.getSession()) && now().isAfter(view.getClosingTime());
+    }
+
+    private VoteCounting buildVoteCounting(final VoteCountingView view) {
+        return new VoteCounting(view.getAgenda(), view.getTotalVotes(), view.getAffirmativeVotes(), view.getNegativeVotes(),
+                view.getOpeningTime(), view.getClosingTime(), view.getSession());
+    }
+
 }
@@ -0,0 +1,61 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vote counting read model of a voting session, kept up to date as votes are counted and session is closed,
+ * so vote counting is read from a single document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "VoteCountingView")
+public class VoteCountingView {
+
+    @Id
+    private String sessionId;
+    @Indexed(name = "counting_view_agenda", unique = true)
+    private String agendaId;
+    private String agenda;
+    private Integer totalVotes;
+    private Integer affirmativeVotes;
+    private Integer negativeVotes;
+    private LocalDateTime openingTime;
+    private LocalDateTime closingTime;
+    private VotingSessionStatus session;
+
+    /**
+     * Build vote counting view of a just opened session, without any vote.
+     *
+     * @param session
+     * @return
+     */
+    public static VoteCountingView buildView(final VotingSession session) {
+        return new VoteCountingView(session.getId(), session.getAgenda().getId(), session.getAgenda().getTitle(), 0, 0, 0,
+                session.getOpeningTime(), session.getClosingTime(), session.getStatus());
+    }
+
+    /**
+     * Build vote counting view of a session with totalizers from its canvass.
+     *
+     * @param session
+     * @param canvass
+     * @return
+     */
+    public static VoteCountingView buildView(final VotingSession session, final VotingSessionCanvass canvass) {
+        return new VoteCountingView(session.getId(), session.getAgenda().getId(), session.getAgenda().getTitle(),
+                canvass.getTotalVotes(), canvass.getAffirmativeVotes(), canvass.getNegativeVotes(),
+                session.getOpeningTime(), session.getClosingTime(), session.getStatus());
+    }
+
+}
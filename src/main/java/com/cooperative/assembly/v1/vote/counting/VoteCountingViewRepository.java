@@ -0,0 +1,11 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface VoteCountingViewRepository extends MongoRepository<VoteCountingView, String>, VoteCountingViewRepositoryCustom {
+
+    Optional<VoteCountingView> findByAgendaId(String agendaId);
+
+}
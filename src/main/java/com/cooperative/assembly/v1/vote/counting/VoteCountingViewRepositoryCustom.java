@@ -0,0 +1,14 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+public interface VoteCountingViewRepositoryCustom {
+
+    /**
+     * Increment vote counting view totalizers atomically. Sessions without a view are left as they are.
+     *
+     * @param sessionId
+     * @param affirmativeVotes
+     * @param negativeVotes
+     */
+    void incrementVotes(final String sessionId, final Integer affirmativeVotes, final Integer negativeVotes);
+
+}
@@ -0,0 +1,29 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class VoteCountingViewRepositoryImpl implements VoteCountingViewRepositoryCustom {
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public VoteCountingViewRepositoryImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void incrementVotes(final String sessionId, final Integer affirmativeVotes, final Integer negativeVotes) {
+        Update update = new Update()
+                .inc("totalVotes", affirmativeVotes + negativeVotes)
+                .inc("affirmativeVotes", affirmativeVotes)
+                .inc("negativeVotes", negativeVotes);
+
+        mongoTemplate.updateFirst(query(where("sessionId").is(sessionId)), update, VoteCountingView.class);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.cooperative.assembly.v1.vote.event;
+
+import com.cooperative.assembly.v1.vote.Vote;
+import com.cooperative.assembly.v1.vote.VoteChoice;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * Compact event of an accepted vote, published to downstream consumers.
+ * Voting user is left out, so consumers can count votes without knowing who cast them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteEvent {
+
+    private String voteId;
+    private String sessionId;
+    private String agendaId;
+    private VoteChoice choice;
+    private String acceptedAt;
+
+    public static VoteEvent buildEvent(final Vote vote) {
+        String agendaId = vote.getSession() != null ? vote.getSession().getAgendaId() : null;
+        return new VoteEvent(vote.getId(), vote.getSessionId(), agendaId, vote.getChoice(), now().toString());
+    }
+
+}
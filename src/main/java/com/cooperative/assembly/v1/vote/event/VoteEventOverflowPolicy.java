@@ -0,0 +1,11 @@
+package com.cooperative.assembly.v1.vote.event;
+
+/**
+ * What to drop when the vote event buffer is full, since voting is never held waiting for the buffer.
+ */
+public enum VoteEventOverflowPolicy {
+
+    DROP_NEWEST,
+    DROP_OLDEST
+
+}
@@ -0,0 +1,194 @@
+package com.cooperative.assembly.v1.vote.event;
+
+import com.cooperative.assembly.v1.vote.Vote;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.jms.MessageProducer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.cooperative.assembly.v1.vote.event.VoteEventOverflowPolicy.DROP_OLDEST;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Publish every accepted vote as a compact event on the votes topic, so downstream consumers can build
+ * their own projections without querying votes on database.
+ * Votes are buffered in memory and published in micro batches off the request thread.
+ * When the buffer is full, events are dropped by the overflow policy instead of holding the voting.
+ */
+@Log4j2
+@Component
+public class VoteEventPublisher implements MeterBinder {
+
+    @Value("${app.config.vote.event.topic.name:assembly-votes}")
+    private String voteTopicName;
+
+    @Value("${app.config.vote.event.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${app.config.vote.event.batchSize:500}")
+    private Integer batchSize;
+
+    @Value("${app.config.vote.event.flush.delayMillis:100}")
+    private Long flushDelayMillis;
+
+    @Value("${app.config.vote.event.overflowPolicy:DROP_OLDEST}")
+    private VoteEventOverflowPolicy overflowPolicy;
+
+    private JmsTemplate jmsTemplateTopic;
+    private BlockingQueue<VoteEvent> buffer;
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private ScheduledExecutorService flushScheduler = newSingleThreadScheduledExecutor(new CustomizableThreadFactory("vote-event-"));
+    private LongAdder publishedEvents = new LongAdder();
+    private LongAdder droppedEvents = new LongAdder();
+    private LongAdder failedEvents = new LongAdder();
+
+    @Autowired
+    public VoteEventPublisher(@Qualifier("jmsTemplateTopic") final JmsTemplate jmsTemplateTopic,
+                              @Value("${app.config.vote.event.buffer.capacity:10000}") final Integer bufferCapacity) {
+        this.jmsTemplateTopic = jmsTemplateTopic;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+
+    /**
+     * Start publishing buffered vote events periodically once application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPublishing() {
+        flushScheduler.scheduleWithFixedDelay(this::flushAll, flushDelayMillis, flushDelayMillis, MILLISECONDS);
+    }
+
+    /**
+     * Buffer an event for each accepted vote, never waiting for room on the buffer.
+     *
+     * @param votes
+     */
+    public void publish(final List<Vote> votes) {
+        if (!enabled) {
+            return;
+        }
+
+        for (Vote vote : votes) {
+            buffer(VoteEvent.buildEvent(vote));
+        }
+    }
+
+    private void buffer(final VoteEvent event) {
+        while (!buffer.offer(event)) {
+            droppedEvents.increment();
+            if (!DROP_OLDEST.equals(overflowPolicy) || buffer.poll() == null) {
+                log.warn("Vote event buffer is full, dropping vote event: ", event.getVoteId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publish all buffered vote events in batches, until buffer is empty.
+     * Any failure is isolated to its batch, so it never cancels the periodic flush.
+     */
+    public void flushAll() {
+        List<VoteEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+
+                flush(batch);
+
+            } catch (RuntimeException ex) {
+                log.error("Could not flush vote events batch, dropping it: ", batch.size(), ex);
+                failedEvents.add(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Publish a batch of vote events through a single session and producer.
+     * A batch that could not be sent is dropped, since vote events are not kept beyond the buffer.
+     *
+     * @param events
+     */
+    protected void flush(final List<VoteEvent> events) {
+        try {
+
+            List<String> messages = toJson(events);
+            jmsTemplateTopic.execute(session -> {
+                MessageProducer producer = session.createProducer(jmsTemplateTopic.getDestinationResolver()
+                        .resolveDestinationName(session, voteTopicName, jmsTemplateTopic.isPubSubDomain()));
+                try {
+
+                    for (String message : messages) {
+                        producer.send(session.createTextMessage(message));
+                    }
+
+                } finally {
+                    JmsUtils.closeMessageProducer(producer);
+                }
+                return null;
+            }, true);
+            publishedEvents.add(events.size());
+
+        } catch (JmsException | JsonProcessingException ex) {
+            log.error("Could not publish vote events batch, dropping it: ", events.size(), ex);
+            failedEvents.add(events.size());
+        }
+    }
+
+    private List<String> toJson(final List<VoteEvent> events) throws JsonProcessingException {
+        List<String> messages = new ArrayList<>(events.size());
+        for (VoteEvent event : events) {
+            messages.add(objectMapper.writeValueAsString(event));
+        }
+        return messages;
+    }
+
+    public Integer getBufferedEvents() {
+        return buffer.size();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("vote.event.published", publishedEvents, LongAdder::sum)
+                .description("Vote events published on the votes topic")
+                .register(registry);
+        FunctionCounter.builder("vote.event.dropped", droppedEvents, LongAdder::sum)
+                .description("Vote events dropped because the buffer was full")
+                .register(registry);
+        FunctionCounter.builder("vote.event.failed", failedEvents, LongAdder::sum)
+                .description("Vote events dropped because they could not be sent")
+                .register(registry);
+        Gauge.builder("vote.event.buffered", buffer, BlockingQueue::size)
+                .description("Vote events waiting on the buffer to be published")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdown();
+        flushAll();
+    }
+
+}
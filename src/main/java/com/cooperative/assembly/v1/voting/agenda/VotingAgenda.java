@@ -2,6 +2,7 @@ package com.cooperative.assembly.v1.voting.agenda;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -12,6 +13,7 @@ public class VotingAgenda {
 
     @Id
     private String id;
+    @Indexed(name = "agenda_title", background = true)
     private String title;
 
     public VotingAgenda(String id) {
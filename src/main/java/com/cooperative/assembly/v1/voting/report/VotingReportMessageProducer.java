@@ -1,83 +1,303 @@
 package com.cooperative.assembly.v1.voting.report;
 
-import com.cooperative.assembly.v1.vote.Vote;
-import com.cooperative.assembly.v1.vote.VoteChoice;
-import com.cooperative.assembly.v1.vote.VoteService;
-import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.scheduling.ScheduledJob;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionClosedEvent;
 import com.cooperative.assembly.v1.voting.session.VotingSessionService;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-import static java.lang.Boolean.TRUE;
-import static java.util.UUID.randomUUID;
-import static org.springframework.util.CollectionUtils.isEmpty;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 @Log4j2
 @Component
-public class VotingReportMessageProducer {
+public class VotingReportMessageProducer implements MeterBinder {
 
     @Value("${spring.activemq.application.queue.name}")
     private String assemblyVotingQueueName;
 
+    @Value("${app.config.voting.report.dispatch.batchSize:100}")
+    private Integer batchSize;
+
+    @Value("${app.config.voting.report.dispatch.batchPublish:true}")
+    private Boolean batchPublish;
+
     private JmsTemplate jmsTemplate;
+    private JmsTemplate jmsBatchTemplate;
     private VotingReportMapper reportMapper;
     private VotingSessionService votingSessionService;
     private VotingSessionCanvassService votingSessionCanvassService;
+    private ScheduledJob dispatchJob;
+    private LongAdder publishedReports = new LongAdder();
+    private LongAdder failedReports = new LongAdder();
+    private LongAdder deadLetteredReports = new LongAdder();
+    private AtomicLong lastBatchSize = new AtomicLong();
+    private AtomicLong lastBatchMillis = new AtomicLong();
 
     @Autowired
-    public VotingReportMessageProducer(final JmsTemplate jmsTemplate, final VotingReportMapper reportMapper,
-                                       final VotingSessionService votingSessionService, final VotingSessionCanvassService votingSessionCanvassService) {
+    public VotingReportMessageProducer(@Qualifier("jmsTemplate") final JmsTemplate jmsTemplate,
+                                       @Qualifier("jmsBatchTemplate") final JmsTemplate jmsBatchTemplate, final VotingReportMapper reportMapper,
+                                       final VotingSessionService votingSessionService, final VotingSessionCanvassService votingSessionCanvassService,
+                                       @Qualifier("reportDispatchJob") final ScheduledJob dispatchJob) {
         this.jmsTemplate = jmsTemplate;
+        this.jmsBatchTemplate = jmsBatchTemplate;
         this.reportMapper = reportMapper;
         this.votingSessionService = votingSessionService;
         this.votingSessionCanvassService = votingSessionCanvassService;
+        this.dispatchJob = dispatchJob;
     }
 
-    @Scheduled(cron = "0 */5 * * * *")
+    /**
+     * Dispatch voting report outbox as soon as a session is closed, on the dispatch job thread.
+     * Sessions closed while a dispatch is running are drained by a single further dispatch right after it.
+     *
+     * @param event
+     */
+    @EventListener
+    public void onVotingSessionClosed(final VotingSessionClosedEvent event) {
+        dispatchJob.request(this::reportClosedSessionResults);
+    }
+
+    /**
+     * Recovery sweep triggering the outbox dispatch on its own job thread, for reports that could not be published
+     * when their sessions were closed, like reports left by a broker failure or sessions closed by another instance.
+     * The dispatch is skipped while the previous one is still running.
+     */
+    @Scheduled(fixedDelayString = "${app.config.voting.report.dispatch.fixedDelay:60000}")
+    public void scheduleClosedSessionResults() {
+        dispatchJob.trigger(this::reportClosedSessionResults);
+    }
+
+    /**
+     * Drain voting report outbox of closed sessions in batches, checkpointing each batch as published once it was sent.
+     * Sessions whose reports could not be built are dead-lettered as failed, so they never block the outbox.
+     * Draining stops when the outbox is empty or when some report of the batch could not be published.
+     */
     public void reportClosedSessionResults() {
-        List<VotingSession> sessions = votingSessionService.loadClosedSessionsToPublish();
+        List<VotingSession> sessions;
+        List<String> publishedSessionIds;
+        List<String> failedSessionIds;
+
+        do {
+            sessions = votingSessionService.loadClosedSessionsToPublish(batchSize);
+            failedSessionIds = new ArrayList<>();
+            publishedSessionIds = batchPublish ? publishVotingReportBatch(sessions, failedSessionIds) : publishVotingReport(sessions, failedSessionIds);
+
+            if (!publishedSessionIds.isEmpty()) {
+                log.debug("Found closed sessions to publish couting results.");
+                votingSessionService.markSessionsPublished(publishedSessionIds);
+            }
+
+            if (!failedSessionIds.isEmpty()) {
+                votingSessionService.markSessionReportsFailed(failedSessionIds);
+                deadLetteredReports.add(failedSessionIds.size());
+            }
 
-        if (!isEmpty(sessions)) {
-            log.debug("Found closed sessions to publish couting results.");
-            publishVotingReport(sessions);
+        } while (sessions.size() == batchSize && publishedSessionIds.size() + failedSessionIds.size() == sessions.size());
+    }
+
+    /**
+     * Publish voting report of each session, stopping on the first report that could not be loaded or sent.
+     *
+     * @param sessions
+     * @param failedSessionIds ids of sessions whose reports could not be built
+     * @return ids of sessions whose reports were sent
+     */
+    protected List<String> publishVotingReport(final List<VotingSession> sessions, final List<String> failedSessionIds) {
+        List<String> publishedSessionIds = new ArrayList<>();
+        for (VotingSession session : sessions) {
+            try {
+
+                Optional<String> reportMessage = buildReportMessage(session, failedSessionIds);
+                if (reportMessage.isPresent()) {
+                    sendReportMessage(reportMessage.get());
+                    publishedSessionIds.add(session.getId());
+                }
+
+            } catch (JmsException ex) {
+                log.error("Could not send report message, it is left on outbox to next dispatch: ", session.getId(), ex);
+                failedReports.increment();
+                break;
+            } catch (DataAccessException ex) {
+                log.error("Could not load report message, it is left on outbox to next dispatch: ", session.getId(), ex);
+                break;
+            }
         }
+
+        return publishedSessionIds;
     }
 
-    protected void publishVotingReport(final List<VotingSession> sessions) {
+    /**
+     * Publish voting reports of all sessions in a single transacted session, committed once after the last report.
+     * Reports are built until one could not be loaded, leaving it and the next ones on outbox.
+     * When the batch could not be sent, no report is published and the whole batch is left on outbox.
+     *
+     * @param sessions
+     * @param failedSessionIds ids of sessions whose reports could not be built
+     * @return ids of sessions whose reports were sent
+     */
+    protected List<String> publishVotingReportBatch(final List<VotingSession> sessions, final List<String> failedSessionIds) {
+        Map<String, String> reportMessages = new LinkedHashMap<>();
         for (VotingSession session : sessions) {
-            buildReportToSendMessage(session);
+            try {
+
+                buildReportMessage(session, failedSessionIds)
+                        .ifPresent(json -> reportMessages.put(session.getId(), json));
+
+            } catch (DataAccessException ex) {
+                log.error("Could not load report message, it is left on outbox to next dispatch: ", session.getId(), ex);
+                break;
+            }
+        }
+
+        if (reportMessages.isEmpty()) {
+            return emptyList();
+        }
+
+        try {
+
+            sendReportMessages(reportMessages.values());
+            return new ArrayList<>(reportMessages.keySet());
+
+        } catch (JmsException ex) {
+            log.error("Could not send report messages batch, it is left on outbox to next dispatch: ", reportMessages.size(), ex);
+            failedReports.add(reportMessages.size());
+            return emptyList();
         }
     }
 
-    protected void buildReportToSendMessage(final VotingSession session) {
-        VotingSessionCanvass canvass = votingSessionCanvassService.reloadVotingSessionCanvass(session);
-        VotingReport report = VotingReport.buildReport(session, canvass);
-        Optional<String> json = reportMapper.toJson(report);
-        if (json.isPresent()) {
-            sendReportMessage(json.get());
-            updatePublishedSessionCanvass(session);
+    /**
+     * Build report message of a session as json.
+     * A report that could not be converted, or built from its session data, never succeeds on a retry,
+     * so its session is collected as failed. Database failures are transient, so they are thrown
+     * to leave the session on outbox to the next dispatch.
+     *
+     * @param session
+     * @param failedSessionIds ids of sessions whose reports could not be built
+     * @return
+     */
+    protected Optional<String> buildReportMessage(final VotingSession session, final List<String> failedSessionIds) {
+        try {
+
+            Optional<String> json = reportMapper.toJson(loadSessionReport(session));
+            if (!json.isPresent()) {
+                log.error("Could not convert report message, session is marked as failed: ", session.getId());
+                failedSessionIds.add(session.getId());
+            }
+            return json;
+
+        } catch (DataAccessException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            log.error("Could not build report message, session is marked as failed: ", session.getId(), ex);
+            failedSessionIds.add(session.getId());
+            return Optional.empty();
         }
     }
 
+    /**
+     * Load voting report written when session was closed.
+     * Sessions closed before the report outbox, or whose canvass could not be finalized when closed,
+     * have their canvass finalized to build their report.
+     *
+     * @param session
+     * @return
+     */
+    protected VotingReport loadSessionReport(final VotingSession session) {
+        if (session.getReport() != null) {
+            return session.getReport();
+        }
+
+        VotingSessionCanvass canvass = votingSessionCanvassService.closeVotingSessionCanvass(session);
+        return VotingReport.buildReport(session, canvass);
+    }
+
     protected void sendReportMessage(final String reporMessage) {
         log.debug("Publishing result from closed session: ", reporMessage);
         jmsTemplate.convertAndSend(assemblyVotingQueueName, reporMessage);
+        publishedReports.increment();
+    }
+
+    /**
+     * Send report messages on a single transacted session through a single producer, committing them at once.
+     * Session is rolled back when any message could not be sent.
+     *
+     * @param reportMessages
+     */
+    protected void sendReportMessages(final Collection<String> reportMessages) {
+        log.debug("Publishing results from closed sessions: ", reportMessages.size());
+        long startTime = currentTimeMillis();
+
+        jmsBatchTemplate.execute(session -> {
+            MessageProducer producer = session.createProducer(jmsBatchTemplate.getDestinationResolver()
+                    .resolveDestinationName(session, assemblyVotingQueueName, jmsBatchTemplate.isPubSubDomain()));
+            try {
+
+                for (String reportMessage : reportMessages) {
+                    producer.send(session.createTextMessage(reportMessage));
+                }
+                JmsUtils.commitIfNecessary(session);
+
+            } catch (JMSException ex) {
+                JmsUtils.rollbackIfNecessary(session);
+                throw ex;
+            } finally {
+                JmsUtils.closeMessageProducer(producer);
+            }
+            return null;
+        }, true);
+
+        publishedReports.add(reportMessages.size());
+        lastBatchSize.set(reportMessages.size());
+        lastBatchMillis.set(currentTimeMillis() - startTime);
     }
 
-    private void updatePublishedSessionCanvass(final VotingSession session) {
-        session.setPublished(TRUE);
-        log.debug("Marking session as published: ", session.getId());
-        votingSessionService.saveSession(session);
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("voting.report.published", publishedReports, LongAdder::sum)
+                .description("Voting reports sent to the message broker")
+                .register(registry);
+        FunctionCounter.builder("voting.report.failed", failedReports, LongAdder::sum)
+                .description("Voting reports that could not be sent and were left on outbox")
+                .register(registry);
+        FunctionCounter.builder("voting.report.dead.lettered", deadLetteredReports, LongAdder::sum)
+                .description("Voting reports that could not be built and were marked as failed, off the outbox")
+                .register(registry);
+        Gauge.builder("voting.report.batch.size", lastBatchSize, AtomicLong::get)
+                .description("Voting reports committed on the last batch")
+                .register(registry);
+        TimeGauge.builder("voting.report.batch.duration", lastBatchMillis, MILLISECONDS, AtomicLong::get)
+                .description("Duration of sending and committing the last batch of voting reports")
+                .register(registry);
     }
 
 }
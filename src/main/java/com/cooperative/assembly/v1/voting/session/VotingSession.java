@@ -1,11 +1,14 @@
 package com.cooperative.assembly.v1.voting.session;
 
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.report.VotingReport;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -17,6 +20,11 @@ import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.isN
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "VotingSession")
+@CompoundIndexes({
+        @CompoundIndex(name = "session_agenda", def = "{'agenda.$id': 1}", background = true),
+        @CompoundIndex(name = "session_status_closing_time", def = "{'status': 1, 'closingTime': 1}", background = true),
+        @CompoundIndex(name = "session_closing_batch", def = "{'closingBatch': 1}", sparse = true, background = true)
+})
 public class VotingSession {
 
     @Id
@@ -28,6 +36,23 @@ public class VotingSession {
     private LocalDateTime closingTime;
     private VotingSessionStatus status;
     private Boolean published;
+    private Integer canvassShards;
+    private VotingReport report;
+    private Boolean reportFailed;
+
+    public VotingSession(final String id, final VotingAgenda agenda, final LocalDateTime openingTime, final LocalDateTime closingTime,
+                         final VotingSessionStatus status, final Boolean published) {
+        this(id, agenda, openingTime, closingTime, status, published, null, null, null);
+    }
+
+    /**
+     * Check if votes of this session are counted on more than one canvass shard
+     *
+     * @return
+     */
+    public Boolean isCanvassSharded() {
+        return canvassShards != null && canvassShards > 1;
+    }
 
     /**
      * Check if closing time is past before right now to infer this voting session is still opened
@@ -0,0 +1,62 @@
+package com.cooperative.assembly.v1.voting.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+@Component
+public class VotingSessionCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "votingSession";
+
+    private Cache<String, VotingSession> cache;
+
+    public VotingSessionCache(@Value("${app.config.cache.voting.session.maximumSize:10000}") final Long maximumSize,
+                              @Value("${app.config.cache.voting.session.expireAfterWriteSeconds:60}") final Long expireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get cached voting session by id.
+     *
+     * @param id
+     * @return cached session or null when there is none
+     */
+    public VotingSession get(final String id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void put(final VotingSession session) {
+        cache.put(session.getId(), session);
+    }
+
+    public void invalidate(final String id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(final Collection<String> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+}
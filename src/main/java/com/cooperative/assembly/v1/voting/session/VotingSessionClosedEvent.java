@@ -0,0 +1,14 @@
+package com.cooperative.assembly.v1.voting.session;
+
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class VotingSessionClosedEvent {
+
+    private VotingSession session;
+    private VotingSessionCanvass canvass;
+
+}
@@ -35,7 +35,7 @@ public class VotingSessionController {
             request.setDeadlineMinutes(DEFAULT_DEADLINE_MINUTES);
         }
 
-        VotingSession votingSession = service.openFor(request.getAgendaId(), request.getDeadlineMinutes());
+        VotingSession votingSession = service.openFor(request.getAgendaId(), request.getDeadlineMinutes(), request.getCanvassShards());
         return ResponseEntity.ok().body(VotingSessionResponse.buildResponse(votingSession));
     }
 
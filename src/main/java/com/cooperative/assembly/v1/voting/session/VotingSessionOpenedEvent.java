@@ -0,0 +1,12 @@
+package com.cooperative.assembly.v1.voting.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class VotingSessionOpenedEvent {
+
+    private VotingSession session;
+
+}
@@ -1,14 +1,14 @@
 package com.cooperative.assembly.v1.voting.session;
 
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface VotingSessionRepository extends MongoRepository<VotingSession, String> {
+public interface VotingSessionRepository extends MongoRepository<VotingSession, String>, VotingSessionRepositoryCustom {
 
     /**
      * Find optionally a voting session object by id property string value.
@@ -27,21 +27,22 @@ public interface VotingSessionRepository extends MongoRepository<VotingSession,
     public Optional<VotingSession> findByAgendaId(String agendaId);
 
     /**
-     * Find all voting sessions that matches by status and closingTime is before another time value (like now).
+     * Find all voting sessions that matches by status.
      *
      * @param status
-     * @param time
      * @return
      */
-    public List<VotingSession> findByStatusAndClosingTimeBefore(String status, LocalDateTime time);
+    public List<VotingSession> findByStatus(String status);
 
     /**
-     * Find all voting sessions that matches by status and published property values.
+     * Find a page of voting sessions that matches by status and published property values, whose report failed property does not match.
      *
      * @param status
      * @param published
+     * @param reportFailed
+     * @param pageable
      * @return
      */
-    public List<VotingSession> findByStatusAndPublished(String status, Boolean published);
+    public List<VotingSession> findByStatusAndPublishedAndReportFailedNot(String status, Boolean published, Boolean reportFailed, Pageable pageable);
 
 }
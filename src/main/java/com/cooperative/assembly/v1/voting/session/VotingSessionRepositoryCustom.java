@@ -0,0 +1,47 @@
+package com.cooperative.assembly.v1.voting.session;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface VotingSessionRepositoryCustom {
+
+    /**
+     * Mark voting sessions as published at once, without overwriting any other session property.
+     *
+     * @param ids
+     */
+    public void markPublished(List<String> ids);
+
+    /**
+     * Mark voting sessions whose reports could not be built as failed at once, without overwriting any other session property.
+     *
+     * @param ids
+     */
+    public void markReportFailed(List<String> ids);
+
+    /**
+     * Close every opened voting session whose closing time is before a time value (like now) with a single conditional update.
+     * Sessions closed by the update are tagged with a closing batch, so exactly the sessions it closed are found.
+     *
+     * @param time
+     * @return ids of closed sessions
+     */
+    public List<String> closeOverdueSessions(LocalDateTime time);
+
+    /**
+     * Close a single voting session writing its voting report, only when it is still opened.
+     * A session closed meanwhile by another closer is left untouched.
+     *
+     * @param session
+     * @return whether this call closed the session
+     */
+    public Boolean closeSession(VotingSession session);
+
+    /**
+     * Write voting report of each session at once, without overwriting any other session property.
+     *
+     * @param sessions
+     */
+    public void writeReports(List<VotingSession> sessions);
+
+}
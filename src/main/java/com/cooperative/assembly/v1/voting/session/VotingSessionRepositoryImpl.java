@@ -0,0 +1,83 @@
+package com.cooperative.assembly.v1.voting.session;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.lang.Boolean.TRUE;
+import static java.util.Collections.emptyList;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.data.mongodb.core.BulkOperations.BulkMode.UNORDERED;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class VotingSessionRepositoryImpl implements VotingSessionRepositoryCustom {
+
+    private static final String CLOSING_BATCH = "closingBatch";
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public VotingSessionRepositoryImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void markPublished(final List<String> ids) {
+        mongoTemplate.updateMulti(query(where("id").in(ids)), Update.update("published", TRUE), VotingSession.class);
+    }
+
+    @Override
+    public void markReportFailed(final List<String> ids) {
+        mongoTemplate.updateMulti(query(where("id").in(ids)), Update.update("reportFailed", TRUE), VotingSession.class);
+    }
+
+    @Override
+    public List<String> closeOverdueSessions(final LocalDateTime time) {
+        String closingBatch = randomUUID().toString();
+        Query overdueSessions = query(where("status").is(OPENED.toString()).and("closingTime").lt(time));
+        Update close = new Update()
+                .set("status", CLOSED.toString())
+                .set(CLOSING_BATCH, closingBatch);
+
+        if (mongoTemplate.updateMulti(overdueSessions, close, VotingSession.class).getModifiedCount() == 0) {
+            return emptyList();
+        }
+
+        Query closedSessions = query(where(CLOSING_BATCH).is(closingBatch));
+        closedSessions.fields().include("id");
+        return mongoTemplate.find(closedSessions, VotingSession.class).stream()
+                .map(VotingSession::getId)
+                .collect(toList());
+    }
+
+    @Override
+    public Boolean closeSession(final VotingSession session) {
+        Query openedSession = query(where("id").is(session.getId()).and("status").is(OPENED.toString()));
+        Update close = new Update()
+                .set("status", CLOSED.toString())
+                .set("report", session.getReport());
+
+        return mongoTemplate.updateFirst(openedSession, close, VotingSession.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void writeReports(final List<VotingSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(UNORDERED, VotingSession.class);
+        sessions.forEach(session -> operations.updateOne(query(where("id").is(session.getId())), Update.update("report", session.getReport())));
+        operations.execute();
+    }
+
+}
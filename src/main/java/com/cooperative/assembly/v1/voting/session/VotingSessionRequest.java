@@ -19,4 +19,8 @@ public class VotingSessionRequest {
     @Positive(message = "voting.session.deadline.minutes.invalid")
     private Long deadlineMinutes;
 
+    @Positive(message = "voting.session.canvass.shards.invalid")
+    @Max(value = 64, message = "voting.session.canvass.shards.invalid")
+    private Integer canvassShards;
+
 }
@@ -6,15 +6,19 @@ import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgendaService;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
 import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
 import static java.util.UUID.randomUUID;
 import static java.time.LocalDateTime.now;
 
@@ -23,25 +27,45 @@ import static java.time.LocalDateTime.now;
 public class VotingSessionService {
 
     private static final Boolean NOT_PUBLISHED = FALSE;
+    private static final Boolean REPORT_FAILED = TRUE;
 
     private VotingSessionRepository repository;
     private VotingAgendaService votingAgendaService;
+    private ApplicationEventPublisher eventPublisher;
+    private VotingSessionCache sessionCache;
 
     @Autowired
-    public VotingSessionService(final VotingSessionRepository repository, final VotingAgendaService votingAgendaService) {
+    public VotingSessionService(final VotingSessionRepository repository, final VotingAgendaService votingAgendaService,
+                                final ApplicationEventPublisher eventPublisher, final VotingSessionCache sessionCache) {
         this.repository = repository;
         this.votingAgendaService = votingAgendaService;
+        this.eventPublisher = eventPublisher;
+        this.sessionCache = sessionCache;
+    }
+
+    /**
+     * Open a vote session for related agenda by id defining a deadline time ranged in minutes,
+     * counting its votes on a single canvass.
+     *
+     * @param agendaId
+     * @param deadlineMinutes
+     * @return
+     */
+    public VotingSession openFor(final String agendaId, final Long deadlineMinutes) {
+        return openFor(agendaId, deadlineMinutes, null);
     }
 
     /**
      * Open a vote session for related agenda by id defining a deadline time ranged in minutes.
      * Only accept to open vote session for meeting agendas that have not been related to any vote session.
+     * Votes of sessions expecting heavy voting can be counted on many canvass shards, that are folded when session closes.
      *
      * @param agendaId
      * @param deadlineMinutes
+     * @param canvassShards
      * @return
      */
-    public VotingSession openFor(final String agendaId, final Long deadlineMinutes) {
+    public VotingSession openFor(final String agendaId, final Long deadlineMinutes, final Integer canvassShards) {
         Optional<VotingSession> session = repository.findByAgendaId(agendaId);
         if (session.isPresent()) {
             log.error("There is already an opened voting session for this agenda", agendaId);
@@ -49,7 +73,7 @@ public class VotingSessionService {
         }
 
         VotingAgenda agenda = loadSessionAgenda(agendaId);
-        return openSessionFor(agenda, deadlineMinutes);
+        return openSessionFor(agenda, deadlineMinutes, canvassShards);
     }
 
     /**
@@ -71,35 +95,57 @@ public class VotingSessionService {
 
     /**
      * Open session for related agenda defining time period for voting by deadline in minutes.
+     * Publish VotingSessionOpenedEvent, so the session bell can be scheduled for its closing time.
      *
      * @param agenda
      * @param deadlineMinutes
+     * @param canvassShards
      * @return
      */
-    protected VotingSession openSessionFor(final VotingAgenda agenda, Long deadlineMinutes) {
+    protected VotingSession openSessionFor(final VotingAgenda agenda, Long deadlineMinutes, final Integer canvassShards) {
         String id = randomUUID().toString();
         LocalDateTime openingTime = LocalDateTime.now();
         LocalDateTime closingTime = LocalDateTime.now().plusMinutes(deadlineMinutes);
 
-        VotingSession votingSession = new VotingSession(id, agenda, openingTime, closingTime, OPENED, FALSE);
+        VotingSession votingSession = new VotingSession(id, agenda, openingTime, closingTime, OPENED, FALSE, canvassShards, null, null);
         log.debug("Save voting session to start voting");
-        return repository.save(votingSession);
+        VotingSession savedSession = repository.save(votingSession);
+        eventPublisher.publishEvent(new VotingSessionOpenedEvent(savedSession));
+        return savedSession;
     }
 
     /**
-     * Load voting session by id.
+     * Load voting session by id, reading it from cache when it was already loaded.
+     * Cached sessions are only replaced when their status is saved, since closing time is checked locally.
      * Throw NotFoundReferenceException.class when voting session can not be found.
      *
      * @param id
      * @return
      */
     public VotingSession loadVoteSession(final String id) {
+        VotingSession cachedSession = sessionCache.get(id);
+        if (cachedSession != null) {
+            return cachedSession;
+        }
+
+        return reloadVoteSession(id);
+    }
+
+    /**
+     * Load voting session by id straight from database, refreshing its cached session.
+     * Throw NotFoundReferenceException.class when voting session can not be found.
+     *
+     * @param id
+     * @return
+     */
+    public VotingSession reloadVoteSession(final String id) {
         Optional<VotingSession> session = repository.findById(id);
         if (!session.isPresent()) {
             log.error("Voting session was not found", id);
             throw new NotFoundReferenceException("VotingSession", "voting.session.not.found");
         }
 
+        sessionCache.put(session.get());
         return session.get();
     }
 
@@ -121,32 +167,91 @@ public class VotingSessionService {
     }
 
     /**
-     * Load all opened voting sessions canvass that should not be opened yet.
+     * Load all voting sessions that are still opened.
      *
      * @return
      */
-    public List<VotingSession> loadMissClosedSessions() {
-        return repository.findByStatusAndClosingTimeBefore(OPENED.toString(), now());
+    public List<VotingSession> loadOpenedSessions() {
+        return repository.findByStatus(OPENED.toString());
     }
 
     /**
-     * Load all current closed voting sessions that was not published yet.
+     * Close all opened voting sessions that should not be opened yet at once.
      *
+     * @return ids of closed sessions
+     */
+    public List<String> closeMissClosedSessions() {
+        List<String> ids = repository.closeOverdueSessions(now());
+        sessionCache.invalidateAll(ids);
+        return ids;
+    }
+
+    /**
+     * Load voting sessions by ids at once, straight from database.
+     *
+     * @param ids
      * @return
      */
-    public List<VotingSession> loadClosedSessionsToPublish() {
-        return repository.findByStatusAndPublished(CLOSED.toString(), NOT_PUBLISHED);
+    public List<VotingSession> loadVoteSessions(final List<String> ids) {
+        List<VotingSession> sessions = new ArrayList<>();
+        repository.findAllById(ids).forEach(sessions::add);
+        return sessions;
     }
 
     /**
-     * Save voting session with new status
+     * Save voting report of closed sessions at once, as outbox entries to be published.
      *
-     * @param session
+     * @param sessions
+     */
+    public void saveSessionReports(final List<VotingSession> sessions) {
+        log.debug("Save voting reports of closed sessions: ", sessions.size());
+        repository.writeReports(sessions);
+        sessions.forEach(session -> sessionCache.invalidate(session.getId()));
+    }
+
+    /**
+     * Load a batch of current closed voting sessions that was not published yet, skipping sessions whose reports failed.
+     *
+     * @param batchSize
      * @return
      */
-    public VotingSession saveSession(final VotingSession session) {
-        log.debug("Save session status to allow publish voting counting results");
-        return repository.save(session);
+    public List<VotingSession> loadClosedSessionsToPublish(final Integer batchSize) {
+        return repository.findByStatusAndPublishedAndReportFailedNot(CLOSED.toString(), NOT_PUBLISHED, REPORT_FAILED, PageRequest.of(0, batchSize));
+    }
+
+    /**
+     * Checkpoint voting sessions whose reports were already published.
+     *
+     * @param ids
+     */
+    public void markSessionsPublished(final List<String> ids) {
+        log.debug("Marking sessions as published: ", ids);
+        repository.markPublished(ids);
+        sessionCache.invalidateAll(ids);
+    }
+
+    /**
+     * Dead-letter voting sessions whose reports could not be built, so they no longer block the report outbox.
+     *
+     * @param ids
+     */
+    public void markSessionReportsFailed(final List<String> ids) {
+        log.warn("Marking sessions whose reports could not be built as failed: ", ids);
+        repository.markReportFailed(ids);
+        sessionCache.invalidateAll(ids);
+    }
+
+    /**
+     * Close voting session writing its voting report on the same conditional update, only when it is still opened.
+     *
+     * @param session
+     * @return whether the session was closed by this call, and not by another closer before
+     */
+    public Boolean closeSession(final VotingSession session) {
+        log.debug("Close session to allow publish voting counting results");
+        Boolean closed = repository.closeSession(session);
+        sessionCache.invalidate(session.getId());
+        return closed;
     }
 
 }
@@ -1,50 +1,259 @@
 package com.cooperative.assembly.v1.voting.session;
 
+import com.cooperative.assembly.scheduling.ScheduledJob;
+import com.cooperative.assembly.v1.voting.report.VotingReport;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.time.LocalDateTime.now;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 @Log4j2
 @Service
-public class VotingSessionTinklerbell {
+public class VotingSessionTinklerbell implements MeterBinder {
+
+    @Value("${app.config.voting.session.sweep.pageSize:100}")
+    private Integer sweepPageSize;
 
     private VotingSessionService votingSessionService;
     private VotingSessionCanvassService votingSessionCanvassService;
+    private ApplicationEventPublisher eventPublisher;
+    private Executor closingExecutor;
+    private ScheduledJob sweepJob;
+    private ScheduledExecutorService bellScheduler = newSingleThreadScheduledExecutor(new CustomizableThreadFactory("session-bell-"));
+    private ConcurrentMap<String, ScheduledFuture<?>> scheduledBells = new ConcurrentHashMap<>();
+    private LongAdder sweptSessions = new LongAdder();
+    private LongAdder failedSweptSessions = new LongAdder();
+    private AtomicLong pendingSweptSessions = new AtomicLong();
+    private AtomicLong lastSweepMillis = new AtomicLong();
 
-    public VotingSessionTinklerbell(final VotingSessionService votingSessionService, final VotingSessionCanvassService votingSessionCanvassService) {
+    public VotingSessionTinklerbell(final VotingSessionService votingSessionService, final VotingSessionCanvassService votingSessionCanvassService,
+                                    final ApplicationEventPublisher eventPublisher,
+                                    @Qualifier("sessionClosingExecutor") final Executor closingExecutor,
+                                    @Qualifier("sessionSweepJob") final ScheduledJob sweepJob) {
         this.votingSessionService = votingSessionService;
         this.votingSessionCanvassService = votingSessionCanvassService;
+        this.eventPublisher = eventPublisher;
+        this.closingExecutor = closingExecutor;
+        this.sweepJob = sweepJob;
+    }
+
+    /**
+     * Schedule session bell for every session that is still opened when application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOpenedSessionBells() {
+        List<VotingSession> openedSessions = votingSessionService.loadOpenedSessions();
+        log.debug("Scheduling session bell for opened sessions.", openedSessions.size());
+        openedSessions.forEach(this::scheduleSessionBell);
+    }
+
+    /**
+     * Schedule session bell as soon as a new session is opened.
+     *
+     * @param event
+     */
+    @EventListener
+    public void onVotingSessionOpened(final VotingSessionOpenedEvent event) {
+        scheduleSessionBell(event.getSession());
+    }
+
+    /**
+     * Schedule session bell to ring right at session closing time. Each session is scheduled only once.
+     *
+     * @param session
+     */
+    protected void scheduleSessionBell(final VotingSession session) {
+        long delay = max(0, Duration.between(now(), session.getClosingTime()).toMillis());
+        scheduledBells.computeIfAbsent(session.getId(),
+                sessionId -> bellScheduler.schedule(() -> ringSessionBell(sessionId), delay, MILLISECONDS));
+    }
+
+    /**
+     * Close session when its scheduled bell rings, unless it was already closed by the safety sweep.
+     * Session is reloaded from database, since it could have been closed by another instance.
+     * A session that is not due yet is scheduled again for its closing time.
+     *
+     * @param sessionId
+     */
+    protected void ringSessionBell(final String sessionId) {
+        scheduledBells.remove(sessionId);
+
+        try {
+
+            VotingSession session = votingSessionService.reloadVoteSession(sessionId);
+            if (!OPENED.equals(session.getStatus())) {
+                return;
+            }
+
+            if (!session.isNoLongerOpen()) {
+                scheduleSessionBell(session);
+                return;
+            }
+
+            closeMissClosedSession(session);
+
+        } catch (RuntimeException ex) {
+            log.error("Could not close session on its closing time, it is left to the safety sweep: ", sessionId, ex);
+        }
+    }
+
+    /**
+     * Trigger the safety sweep on its own job thread, so it neither delays nor is delayed by other scheduled jobs.
+     * The sweep is skipped while the previous one is still running.
+     */
+    @Scheduled(cron = "${app.config.voting.session.sweep.cron:0 */5 * * * *}")
+    public void scheduleTheSessionBell() {
+        sweepJob.trigger(this::ringTheSessionBell);
     }
 
-    @Scheduled(cron = "0 * * * * *")
+    /**
+     * Safety sweep closing opened sessions that were missed by the scheduled bells,
+     * like sessions opened by another instance or bells lost on a restart.
+     * All overdue sessions are closed at once, then their canvasses are finalized in parallel pages on the closing executor.
+     */
     public void ringTheSessionBell() {
-        List<VotingSession> openedSessions = votingSessionService.loadMissClosedSessions();
+        long startTime = System.currentTimeMillis();
 
-        if (!isEmpty(openedSessions)) {
-            log.debug("Found opened sessions to close.");
-            for (VotingSession session : openedSessions) {
-                closeMissClosedSession(session);
+        List<String> closedSessionIds = votingSessionService.closeMissClosedSessions();
+        if (!isEmpty(closedSessionIds)) {
+            log.debug("Closed overdue sessions at once.", closedSessionIds.size());
+            for (int page = 0; page < closedSessionIds.size(); page += sweepPageSize) {
+                List<String> pageIds = closedSessionIds.subList(page, min(page + sweepPageSize, closedSessionIds.size()));
+                finalizeClosedSessions(votingSessionService.loadVoteSessions(pageIds));
             }
         }
+
+        lastSweepMillis.set(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Finalize canvasses of a page of closed sessions in parallel, then write all their voting reports at once.
+     * Sessions whose reports could not be written get them built when dispatched.
+     *
+     * @param sessions
+     */
+    private void finalizeClosedSessions(final List<VotingSession> sessions) {
+        pendingSweptSessions.set(sessions.size());
+        List<CompletableFuture<VotingSessionClosedEvent>> finalizations = sessions.stream()
+                .map(session -> CompletableFuture.supplyAsync(() -> finalizeClosedSession(session), closingExecutor))
+                .collect(toList());
+
+        List<VotingSessionClosedEvent> closedSessions = finalizations.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(toList());
+
+        try {
+
+            votingSessionService.saveSessionReports(closedSessions.stream().map(VotingSessionClosedEvent::getSession).collect(toList()));
+
+        } catch (RuntimeException ex) {
+            log.error("Could not write voting reports of closed sessions, they are built when dispatched: ", ex);
+        }
+
+        closedSessions.forEach(eventPublisher::publishEvent);
+        log.info("Closed {} overdue sessions so far, {} failed", sweptSessions.sum(), failedSweptSessions.sum());
+    }
+
+    /**
+     * Finalize canvass and build voting report of a single closed session, isolating its failure from the other sessions of the page.
+     *
+     * @param session
+     * @return closed session event, or null when it could not be finalized
+     */
+    private VotingSessionClosedEvent finalizeClosedSession(final VotingSession session) {
+        try {
+
+            VotingSessionCanvass canvass = votingSessionCanvassService.closeVotingSessionCanvass(session);
+            session.setReport(VotingReport.buildReport(session, canvass));
+            sweptSessions.increment();
+            return new VotingSessionClosedEvent(session, canvass);
+
+        } catch (RuntimeException ex) {
+            log.error("Could not finalize closed session canvass, its report is built when dispatched: ", session.getId(), ex);
+            failedSweptSessions.increment();
+            return null;
+        } finally {
+            pendingSweptSessions.decrementAndGet();
+        }
     }
 
     /**
      * Close opened session that should to be closed already.
+     * Voting report is written on the same conditional update that closes it, as an outbox entry to be published.
+     * Session closing is announced with its final canvass only when this bell closed it,
+     * so a session closed meanwhile by another instance or by the safety sweep is never announced twice.
      *
      * @param session
      */
     private void closeMissClosedSession(final VotingSession session) {
-        votingSessionCanvassService.reloadVotingSessionCanvass(session);
+        VotingSessionCanvass canvass = votingSessionCanvassService.closeVotingSessionCanvass(session);
 
         session.setStatus(CLOSED);
+        session.setReport(VotingReport.buildReport(session, canvass));
         log.debug("Closing session: ", session.getId());
-        votingSessionService.saveSession(session);
+        if (!votingSessionService.closeSession(session)) {
+            log.debug("Session was already closed by another closer: ", session.getId());
+            return;
+        }
+
+        eventPublisher.publishEvent(new VotingSessionClosedEvent(session, canvass));
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("voting.session.sweep.closed", sweptSessions, LongAdder::sum)
+                .description("Overdue sessions closed and finalized by the safety sweep")
+                .register(registry);
+        FunctionCounter.builder("voting.session.sweep.failed", failedSweptSessions, LongAdder::sum)
+                .description("Overdue sessions closed by the safety sweep whose canvass could not be finalized")
+                .register(registry);
+        Gauge.builder("voting.session.sweep.pending", pendingSweptSessions, AtomicLong::get)
+                .description("Sessions of the current sweep page still to be finalized")
+                .register(registry);
+        TimeGauge.builder("voting.session.sweep.duration", lastSweepMillis, MILLISECONDS, AtomicLong::get)
+                .description("Duration of the last safety sweep")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bellScheduler.shutdownNow();
     }
 
 }
@@ -0,0 +1,16 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import com.cooperative.assembly.v1.vote.VoteChoice;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteChoiceCount {
+
+    private VoteChoice choice;
+    private Integer votes;
+
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,6 +14,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "VotingSessionCanvass")
+@CompoundIndexes({
+        @CompoundIndex(name = "canvass_session", def = "{'session': 1}", unique = true),
+        @CompoundIndex(name = "canvass_session_id", def = "{'session.$id': 1}", background = true)
+})
 public class VotingSessionCanvass {
 
     @Id
@@ -41,4 +47,34 @@ public class VotingSessionCanvass {
         this.totalVotes++;
     }
 
+    /**
+     * Increment a number of afirmative votes, increasing total and affirmative votes
+     *
+     * @param votes
+     */
+    public void incrementAffirmative(final Integer votes) {
+        this.affirmativeVotes += votes;
+        this.totalVotes += votes;
+    }
+
+    /**
+     * Increment a number of negative votes, increasing total and negative votes
+     *
+     * @param votes
+     */
+    public void incrementNegative(final Integer votes) {
+        this.negativeVotes += votes;
+        this.totalVotes += votes;
+    }
+
+    /**
+     * Reset all totalizers to recount votes from the beginning
+     *
+     */
+    public void resetVotes() {
+        this.affirmativeVotes = 0;
+        this.negativeVotes = 0;
+        this.totalVotes = 0;
+    }
+
 }
@@ -0,0 +1,272 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+@Log4j2
+@Component
+public class VotingSessionCanvassCounter {
+
+    @Value("${app.config.voting.session.canvass.flush.delayMillis:250}")
+    private Long flushDelayMillis;
+
+    private VotingSessionCanvassRepository repository;
+    private ApplicationEventPublisher eventPublisher;
+    private ConcurrentMap<String, SessionVoteCounter> counters = new ConcurrentHashMap<>();
+    private Cache<String, Boolean> releasedSessions;
+    private ScheduledExecutorService flushScheduler = newSingleThreadScheduledExecutor(new CustomizableThreadFactory("canvass-flush-"));
+
+    @Autowired
+    public VotingSessionCanvassCounter(final VotingSessionCanvassRepository repository, final ApplicationEventPublisher eventPublisher,
+                                       @Value("${app.config.voting.session.canvass.released.expireAfterSeconds:3600}") final Long releasedExpireAfterSeconds) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.releasedSessions = Caffeine.newBuilder()
+                .expireAfterWrite(releasedExpireAfterSeconds, SECONDS)
+                .build();
+    }
+
+    /**
+     * Start flushing counted votes to session canvasses periodically once application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlushing() {
+        flushScheduler.scheduleWithFixedDelay(this::flushAll, flushDelayMillis, flushDelayMillis, MILLISECONDS);
+    }
+
+    /**
+     * Count accepted votes of a session in memory, without touching its canvass document.
+     *
+     * @param sessionId
+     * @param title
+     * @param affirmativeVotes
+     * @param negativeVotes
+     */
+    public void increment(final String sessionId, final String title, final Integer affirmativeVotes, final Integer negativeVotes) {
+        increment(sessionId, title, 1, 0, affirmativeVotes, negativeVotes);
+    }
+
+    /**
+     * Count accepted votes of a session canvass shard in memory, without touching its shard document.
+     *
+     * @param sessionId
+     * @param title
+     * @param canvassShards
+     * @param shard
+     * @param affirmativeVotes
+     * @param negativeVotes
+     */
+    public void increment(final String sessionId, final String title, final Integer canvassShards, final Integer shard,
+                          final Integer affirmativeVotes, final Integer negativeVotes) {
+        SessionVoteCounter counter = counters.computeIfAbsent(sessionId,
+                id -> isReleased(id) ? null : new SessionVoteCounter(title, canvassShards));
+
+        if (counter == null || !counter.add(shard, affirmativeVotes, negativeVotes)) {
+            log.warn("Dropping votes counted after session canvass was released, they are recounted from stored votes: ",
+                    sessionId, affirmativeVotes, negativeVotes);
+        }
+    }
+
+    /**
+     * Flush votes counted since last flush of every session.
+     */
+    public void flushAll() {
+        for (String sessionId : counters.keySet()) {
+            try {
+
+                SessionVoteCounter counter = counters.get(sessionId);
+                flush(sessionId, counter);
+                if (counter != null && counter.isReleased()) {
+                    counters.remove(sessionId, counter);
+                }
+
+            } catch (RuntimeException ex) {
+                log.error("Could not flush counted votes, they are kept to next flush: ", sessionId, ex);
+            }
+        }
+    }
+
+    /**
+     * Flush votes counted since last flush of a session to its canvass with a single atomic increment,
+     * announcing the flushed votes to keep vote counting views up to date.
+     *
+     * @param sessionId
+     */
+    public void flush(final String sessionId) {
+        flush(sessionId, counters.get(sessionId));
+    }
+
+    /**
+     * Stop counting votes of a session, flushing all its remaining counted votes.
+     * Votes counted for the session from now on are dropped, as its closed canvass is recounted from stored votes.
+     * Remaining votes that could not be flushed are discarded as well, so they are never added again
+     * to the recounted canvass by a later flush.
+     *
+     * @param sessionId
+     */
+    public void release(final String sessionId) {
+        releasedSessions.put(sessionId, TRUE);
+        SessionVoteCounter counter = counters.get(sessionId);
+        if (counter == null) {
+            return;
+        }
+
+        counter.release();
+        try {
+
+            flush(sessionId, counter);
+
+        } finally {
+            counter.discard();
+            counters.remove(sessionId, counter);
+        }
+    }
+
+    private Boolean isReleased(final String sessionId) {
+        return releasedSessions.getIfPresent(sessionId) != null;
+    }
+
+    private void flush(final String sessionId, final SessionVoteCounter counter) {
+        if (counter == null) {
+            return;
+        }
+
+        VotingSessionCanvassFlushedEvent flushedVotes = counter.flush(sessionId, repository);
+        if (flushedVotes != null) {
+            eventPublisher.publishEvent(flushedVotes);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdown();
+        flushAll();
+    }
+
+    /**
+     * Striped affirmative and negative vote counters of a single session, one pair for each canvass shard.
+     * Counters are never reset, flushes write only the difference from the last flushed sums,
+     * so votes counted while flushing are kept to the next one.
+     * Once released, no more votes are counted, so a final flush writes all of them.
+     */
+    private static class SessionVoteCounter {
+
+        private ReadWriteLock releaseLock = new ReentrantReadWriteLock();
+        private boolean released;
+        private String title;
+        private int shards;
+        private LongAdder[] affirmativeVotes;
+        private LongAdder[] negativeVotes;
+        private long[] flushedAffirmativeVotes;
+        private long[] flushedNegativeVotes;
+
+        SessionVoteCounter(final String title, final Integer canvassShards) {
+            this.title = title;
+            this.shards = canvassShards == null || canvassShards < 1 ? 1 : canvassShards;
+            this.affirmativeVotes = new LongAdder[shards];
+            this.negativeVotes = new LongAdder[shards];
+            this.flushedAffirmativeVotes = new long[shards];
+            this.flushedNegativeVotes = new long[shards];
+            for (int shard = 0; shard < shards; shard++) {
+                affirmativeVotes[shard] = new LongAdder();
+                negativeVotes[shard] = new LongAdder();
+            }
+        }
+
+        Boolean add(final Integer shard, final Integer affirmative, final Integer negative) {
+            releaseLock.readLock().lock();
+            try {
+
+                if (released) {
+                    return FALSE;
+                }
+
+                affirmativeVotes[shard % shards].add(affirmative);
+                negativeVotes[shard % shards].add(negative);
+                return TRUE;
+
+            } finally {
+                releaseLock.readLock().unlock();
+            }
+        }
+
+        void release() {
+            releaseLock.writeLock().lock();
+            try {
+                released = true;
+            } finally {
+                releaseLock.writeLock().unlock();
+            }
+        }
+
+        Boolean isReleased() {
+            releaseLock.readLock().lock();
+            try {
+                return released;
+            } finally {
+                releaseLock.readLock().unlock();
+            }
+        }
+
+        synchronized VotingSessionCanvassFlushedEvent flush(final String sessionId, final VotingSessionCanvassRepository repository) {
+            int affirmativeDeltas = 0;
+            int negativeDeltas = 0;
+            for (int shard = 0; shard < shards; shard++) {
+                long affirmative = affirmativeVotes[shard].sum();
+                long negative = negativeVotes[shard].sum();
+                int affirmativeDelta = (int) (affirmative - flushedAffirmativeVotes[shard]);
+                int negativeDelta = (int) (negative - flushedNegativeVotes[shard]);
+                if (affirmativeDelta == 0 && negativeDelta == 0) {
+                    continue;
+                }
+
+                if (shards == 1) {
+                    repository.incrementVotes(sessionId, title, affirmativeDelta, negativeDelta);
+                } else {
+                    repository.incrementShardVotes(sessionId, shard, affirmativeDelta, negativeDelta);
+                }
+                flushedAffirmativeVotes[shard] = affirmative;
+                flushedNegativeVotes[shard] = negative;
+                affirmativeDeltas += affirmativeDelta;
+                negativeDeltas += negativeDelta;
+            }
+
+            if (affirmativeDeltas == 0 && negativeDeltas == 0) {
+                return null;
+            }
+
+            return new VotingSessionCanvassFlushedEvent(sessionId, affirmativeDeltas, negativeDeltas);
+        }
+
+        synchronized void discard() {
+            for (int shard = 0; shard < shards; shard++) {
+                flushedAffirmativeVotes[shard] = affirmativeVotes[shard].sum();
+                flushedNegativeVotes[shard] = negativeVotes[shard].sum();
+            }
+        }
+
+    }
+
+}
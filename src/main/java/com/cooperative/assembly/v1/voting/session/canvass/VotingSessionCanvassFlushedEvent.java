@@ -0,0 +1,14 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class VotingSessionCanvassFlushedEvent {
+
+    private String sessionId;
+    private Integer affirmativeVotes;
+    private Integer negativeVotes;
+
+}
@@ -0,0 +1,52 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import com.cooperative.assembly.error.exception.ValidationException;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+
+/**
+ * Actuator endpoint reconciling the canvass of a closed voting session with its stored votes.
+ */
+@Log4j2
+@Component
+@Endpoint(id = "canvassrecount")
+public class VotingSessionCanvassRecountEndpoint {
+
+    private VotingSessionService votingSessionService;
+    private VotingSessionCanvassService votingSessionCanvassService;
+
+    @Autowired
+    public VotingSessionCanvassRecountEndpoint(final VotingSessionService votingSessionService,
+                                               final VotingSessionCanvassService votingSessionCanvassService) {
+        this.votingSessionService = votingSessionService;
+        this.votingSessionCanvassService = votingSessionCanvassService;
+    }
+
+    /**
+     * Recount canvass of a closed session from its stored votes.
+     * Sessions still opened are never recounted, since votes counted in memory would be counted twice once flushed.
+     * Throw ValidationException when session was not closed yet.
+     *
+     * @param sessionId
+     * @return
+     */
+    @WriteOperation
+    public VotingSessionCanvass recount(@Selector final String sessionId) {
+        VotingSession session = votingSessionService.reloadVoteSession(sessionId);
+        if (!CLOSED.equals(session.getStatus())) {
+            log.error("Voting session is still opened, its canvass can not be recounted", sessionId);
+            throw new ValidationException("voting.session.still.open", "sessionId", sessionId);
+        }
+
+        return votingSessionCanvassService.recountVotingSessionCanvass(session);
+    }
+
+}
@@ -4,7 +4,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface VotingSessionCanvassRepository extends MongoRepository<VotingSessionCanvass, String> {
+public interface VotingSessionCanvassRepository extends MongoRepository<VotingSessionCanvass, String>, VotingSessionCanvassRepositoryCustom {
 
     Optional<VotingSessionCanvass> findBySessionId(String sessionId);
 
@@ -0,0 +1,43 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import java.util.List;
+
+public interface VotingSessionCanvassRepositoryCustom {
+
+    /**
+     * Increment session canvass totalizers atomically, creating the canvass when session has none yet.
+     *
+     * @param sessionId
+     * @param title
+     * @param affirmativeVotes
+     * @param negativeVotes
+     */
+    void incrementVotes(final String sessionId, final String title, final Integer affirmativeVotes, final Integer negativeVotes);
+
+    /**
+     * Increment a session canvass shard totalizers atomically, creating the shard when it has none yet.
+     *
+     * @param sessionId
+     * @param shard
+     * @param affirmativeVotes
+     * @param negativeVotes
+     */
+    void incrementShardVotes(final String sessionId, final Integer shard, final Integer affirmativeVotes, final Integer negativeVotes);
+
+    /**
+     * Find all canvass shards of a session.
+     *
+     * @param sessionId
+     * @return
+     */
+    List<VotingSessionCanvassShard> findSessionShards(final String sessionId);
+
+    /**
+     * Count votes registered on session by choice, aggregating them on database to recount its canvass.
+     *
+     * @param sessionId
+     * @return
+     */
+    List<VoteChoiceCount> countSessionVoteChoices(final String sessionId);
+
+}
@@ -0,0 +1,95 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import com.cooperative.assembly.v1.vote.Vote;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.mongodb.DBRef;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassShard.buildShardId;
+import static java.util.UUID.randomUUID;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Log4j2
+public class VotingSessionCanvassRepositoryImpl implements VotingSessionCanvassRepositoryCustom {
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public VotingSessionCanvassRepositoryImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void incrementVotes(final String sessionId, final String title, final Integer affirmativeVotes, final Integer negativeVotes) {
+        Query query = query(where("session").is(buildSessionReference(sessionId)));
+        Update update = new Update()
+                .setOnInsert("_id", randomUUID().toString())
+                .setOnInsert("title", title)
+                .inc("totalVotes", affirmativeVotes + negativeVotes)
+                .inc("affirmativeVotes", affirmativeVotes)
+                .inc("negativeVotes", negativeVotes);
+
+        try {
+
+            mongoTemplate.upsert(query, update, VotingSessionCanvass.class);
+
+        } catch (DuplicateKeyException ex) {
+            log.debug("Session canvass was created concurrently, incrementing it again: ", sessionId);
+            mongoTemplate.upsert(query, update, VotingSessionCanvass.class);
+        }
+    }
+
+    @Override
+    public void incrementShardVotes(final String sessionId, final Integer shard, final Integer affirmativeVotes, final Integer negativeVotes) {
+        Query query = query(where("id").is(buildShardId(sessionId, shard)));
+        Update update = new Update()
+                .setOnInsert("sessionId", sessionId)
+                .setOnInsert("shard", shard)
+                .inc("totalVotes", affirmativeVotes + negativeVotes)
+                .inc("affirmativeVotes", affirmativeVotes)
+                .inc("negativeVotes", negativeVotes);
+
+        try {
+
+            mongoTemplate.upsert(query, update, VotingSessionCanvassShard.class);
+
+        } catch (DuplicateKeyException ex) {
+            log.debug("Session canvass shard was created concurrently, incrementing it again: ", sessionId, shard);
+            mongoTemplate.upsert(query, update, VotingSessionCanvassShard.class);
+        }
+    }
+
+    @Override
+    public List<VotingSessionCanvassShard> findSessionShards(final String sessionId) {
+        return mongoTemplate.find(query(where("sessionId").is(sessionId)), VotingSessionCanvassShard.class);
+    }
+
+    @Override
+    public List<VoteChoiceCount> countSessionVoteChoices(final String sessionId) {
+        Aggregation aggregation = newAggregation(
+                match(where("sessionId").is(sessionId)),
+                group("choice").count().as("votes"),
+                project("votes").and("choice").previousOperation());
+
+        return mongoTemplate.aggregate(aggregation, Vote.class, VoteChoiceCount.class)
+                .getMappedResults();
+    }
+
+    private DBRef buildSessionReference(final String sessionId) {
+        return new DBRef(mongoTemplate.getCollectionName(VotingSession.class), sessionId);
+    }
+
+}
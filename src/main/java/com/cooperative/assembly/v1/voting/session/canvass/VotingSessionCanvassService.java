@@ -2,7 +2,7 @@ package com.cooperative.assembly.v1.voting.session.canvass;
 
 import com.cooperative.assembly.v1.vote.Vote;
 import com.cooperative.assembly.v1.vote.VoteChoice;
-import com.cooperative.assembly.v1.vote.VoteService;
+import com.cooperative.assembly.v1.vote.VoteSessionSnapshot;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
 
@@ -11,22 +11,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.isNoLongerOpen;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassShard.shardFor;
 import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.groupingBy;
 
 @Log4j2
 @Service
 public class VotingSessionCanvassService {
 
     private VotingSessionCanvassRepository repository;
-    private VoteService voteService;
+    private VotingSessionCanvassCounter counter;
 
     @Autowired
-    public VotingSessionCanvassService(final VotingSessionCanvassRepository repository, final VoteService voteService) {
+    public VotingSessionCanvassService(final VotingSessionCanvassRepository repository, final VotingSessionCanvassCounter counter) {
         this.repository = repository;
-        this.voteService = voteService;
+        this.counter = counter;
     }
 
     /**
@@ -41,18 +44,137 @@ public class VotingSessionCanvassService {
     }
 
     /**
-     * Apply vote choices on voting session canvass.
-     * Should increment affirmative and negative totalizers.
+     * Increment session canvass totalizers with accepted votes.
+     * Votes are grouped by session and counted in memory, to be flushed to each session canvass periodically.
+     * Votes of sharded sessions are also grouped by the canvass shard of their users.
+     *
+     * @param votes
+     */
+    public void incrementVotes(final List<Vote> votes) {
+        Map<String, List<Vote>> sessionVotes = votes.stream()
+                .collect(groupingBy(Vote::getSessionId));
+
+        sessionVotes.forEach((sessionId, votesOnSession) -> {
+            VoteSessionSnapshot session = votesOnSession.get(0).getSession();
+            Integer canvassShards = session.getCanvassShards();
+            if (canvassShards == null || canvassShards <= 1) {
+                incrementSessionVotes(sessionId, session.getAgendaTitle(), votesOnSession);
+                return;
+            }
+
+            votesOnSession.stream()
+                    .collect(groupingBy(vote -> shardFor(vote.getUserId(), canvassShards)))
+                    .forEach((shard, votesOnShard) -> incrementShardVotes(sessionId, session.getAgendaTitle(), canvassShards, shard, votesOnShard));
+        });
+    }
+
+    /**
+     * Increment a session canvass totalizers by affirmative and negative choices of its votes.
+     *
+     * @param sessionId
+     * @param title
+     * @param votes
+     */
+    private void incrementSessionVotes(final String sessionId, final String title, final List<Vote> votes) {
+        int affirmativeVotes = countAffirmativeVotes(votes);
+        int negativeVotes = countNegativeVotes(votes);
+
+        log.debug("Incrementing vote counting for session: ", sessionId);
+        counter.increment(sessionId, title, affirmativeVotes, negativeVotes);
+    }
+
+    /**
+     * Increment a session canvass shard totalizers by affirmative and negative choices of its votes.
+     *
+     * @param sessionId
+     * @param title
+     * @param canvassShards
+     * @param shard
+     * @param votes
+     */
+    private void incrementShardVotes(final String sessionId, final String title, final Integer canvassShards, final Integer shard,
+                                     final List<Vote> votes) {
+        int affirmativeVotes = countAffirmativeVotes(votes);
+        int negativeVotes = countNegativeVotes(votes);
+
+        log.debug("Incrementing vote counting for session shard: ", sessionId, shard);
+        counter.increment(sessionId, title, canvassShards, shard, affirmativeVotes, negativeVotes);
+    }
+
+    private int countAffirmativeVotes(final List<Vote> votes) {
+        return (int) votes.stream().filter(vote -> vote.getChoice().isAffirmative()).count();
+    }
+
+    private int countNegativeVotes(final List<Vote> votes) {
+        return (int) votes.stream().filter(vote -> vote.getChoice().isNegative()).count();
+    }
+
+    /**
+     * Load voting session canvass with its current totalizers.
+     * Totalizers are incremented as votes are accepted, so there is nothing to recount or save here.
+     * Totalizers of a sharded session that was not closed yet are summed from its shards.
      *
      * @param session
      */
     public VotingSessionCanvass reloadVotingSessionCanvass(final VotingSession session) {
         log.debug("Reload vote counting for session: ", session.getId());
         VotingSessionCanvass canvass = loadSessionCanvass(session);
-        if (isNoLongerOpen(session)) {
-            return canvass;
+        if (session.isCanvassSharded() && !CLOSED.equals(session.getStatus())) {
+            applyShardVotes(canvass, session);
+        }
+
+        return canvass;
+    }
+
+    /**
+     * Close voting session canvass, releasing its votes still counted in memory and recounting it from stored votes.
+     * Final totalizers never depend on in-memory counts, like votes counted right after the release
+     * or counts lost by a crashed instance. Canvass of a sharded session keeps the final totalizers since then.
+     *
+     * @param session
+     * @return
+     */
+    public VotingSessionCanvass closeVotingSessionCanvass(final VotingSession session) {
+        log.debug("Release counted votes for closing session: ", session.getId());
+        try {
+
+            counter.release(session.getId());
+
+        } catch (RuntimeException ex) {
+            log.error("Could not flush counted votes for closing session, they are recounted: ", session.getId(), ex);
         }
 
+        return recountVotingSessionCanvass(session);
+    }
+
+    /**
+     * Replace session canvass totalizers by the sum of all its shards totalizers.
+     *
+     * @param canvass
+     * @param session
+     */
+    protected void applyShardVotes(final VotingSessionCanvass canvass, final VotingSession session) {
+        canvass.resetVotes();
+        for (VotingSessionCanvassShard shard : repository.findSessionShards(session.getId())) {
+            canvass.incrementAffirmative(shard.getAffirmativeVotes());
+            canvass.incrementNegative(shard.getNegativeVotes());
+        }
+    }
+
+    /**
+     * Recount all votes from session replacing its canvass totalizers.
+     * Votes are counted by choice on database, so they are never loaded to be recounted.
+     * This is an explicit reconciliation operation, run when session is closed or on the canvassrecount endpoint,
+     * that should run while session is not receiving votes.
+     *
+     * @param session
+     * @return
+     */
+    public VotingSessionCanvass recountVotingSessionCanvass(final VotingSession session) {
+        log.debug("Recount votes for session: ", session.getId());
+        VotingSessionCanvass canvass = loadSessionCanvass(session);
+        canvass.resetVotes();
+
         applyVoteChoices(canvass, session);
         return saveCanvass(canvass);
     }
@@ -73,31 +195,31 @@ public class VotingSessionCanvassService {
     }
 
     /**
-     * Load all votes from session and apply on session canvass totalizers.
+     * Count votes from session by choice and apply on session canvass totalizers.
      *
      * @param session
      */
     protected void applyVoteChoices(VotingSessionCanvass canvass, VotingSession session) {
-        List<Vote> currentVotes = voteService.getSessionVotes(session);
-        for (Vote vote : currentVotes) {
-            applyVoteChoices(canvass, vote);
+        List<VoteChoiceCount> counts = repository.countSessionVoteChoices(session.getId());
+        for (VoteChoiceCount count : counts) {
+            applyVoteChoices(canvass, count);
         }
     }
 
     /**
-     * Apply vote choice on session canvass by affirmative or negative choice.
+     * Apply counted votes on session canvass by affirmative or negative choice.
      *
      * @param canvass
-     * @param vote
+     * @param count
      */
-    private void applyVoteChoices(final VotingSessionCanvass canvass, final Vote vote) {
-        VoteChoice choice = vote.getChoice();
+    private void applyVoteChoices(final VotingSessionCanvass canvass, final VoteChoiceCount count) {
+        VoteChoice choice = count.getChoice();
         if (choice.isAffirmative()) {
-            canvass.incrementAffirmative();
+            canvass.incrementAffirmative(count.getVotes());
         }
 
         if (choice.isNegative()) {
-            canvass.incrementNegative();
+            canvass.incrementNegative(count.getVotes());
         }
     }
 
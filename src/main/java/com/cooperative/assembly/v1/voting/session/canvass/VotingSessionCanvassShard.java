@@ -0,0 +1,54 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import static java.lang.Math.floorMod;
+import static java.lang.String.format;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "VotingSessionCanvassShard")
+public class VotingSessionCanvassShard {
+
+    @Id
+    private String id;
+    @Indexed(name = "canvass_shard_session")
+    private String sessionId;
+    private Integer shard;
+    private Integer totalVotes;
+    private Integer affirmativeVotes;
+    private Integer negativeVotes;
+
+    /**
+     * Build canvass shard id, that is the same for each session shard.
+     *
+     * @param sessionId
+     * @param shard
+     * @return
+     */
+    public static String buildShardId(final String sessionId, final Integer shard) {
+        return format("%s:%d", sessionId, shard);
+    }
+
+    /**
+     * Choose canvass shard of user votes by hashing user id, always the first shard when session is not sharded.
+     *
+     * @param userId
+     * @param canvassShards
+     * @return
+     */
+    public static Integer shardFor(final String userId, final Integer canvassShards) {
+        if (canvassShards == null || canvassShards <= 1) {
+            return 0;
+        }
+
+        return floorMod(userId.hashCode(), canvassShards);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.cooperative.assembly.index;
+
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { QueryPlanEndpoint.class })
+public class QueryPlanEndpointTest {
+
+    @Autowired
+    private QueryPlanEndpoint endpoint;
+
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    private MongoDatabase database;
+
+    @Before
+    public void setUp() {
+        database = mock(MongoDatabase.class);
+        when(mongoTemplate.getDb()).thenReturn(database);
+        when(mongoTemplate.getCollectionName(any())).thenReturn("VotingSession");
+    }
+
+    @Test
+    public void shouldExplainEveryQueryShapeWhenReadingQueryPlans() {
+        when(database.runCommand(any(Bson.class))).thenReturn(buildExplain(new Document("stage", "EOF")));
+
+        List<QueryPlan> plans = endpoint.queryPlans();
+
+        assertThat(plans, hasSize(endpoint.buildQueryShapes().size()));
+        assertThat(plans.get(0), hasProperty("query", equalTo("closeOverdueSessions")));
+    }
+
+    @Test
+    public void shouldFlagCollectionScanWhenWinningPlanScansCollection() {
+        when(database.runCommand(any(Bson.class))).thenReturn(buildExplain(new Document("stage", "COLLSCAN")));
+
+        List<QueryPlan> plans = endpoint.queryPlans();
+
+        assertThat(plans, everyItem(hasProperty("collectionScan", is(true))));
+        assertThat(plans.get(0), hasProperty("stages", contains("COLLSCAN")));
+    }
+
+    @Test
+    public void shouldReportUsedIndexWhenWinningPlanScansIndex() {
+        Document indexScan = new Document("stage", "IXSCAN").append("indexName", "session_status_closing_time");
+        when(database.runCommand(any(Bson.class))).thenReturn(buildExplain(new Document("stage", "FETCH").append("inputStage", indexScan)));
+
+        List<QueryPlan> plans = endpoint.queryPlans();
+
+        assertThat(plans.get(0), hasProperty("collectionScan", is(false)));
+        assertThat(plans.get(0), hasProperty("stages", contains("FETCH", "IXSCAN")));
+        assertThat(plans.get(0), hasProperty("indexes", contains("session_status_closing_time")));
+    }
+
+    @Test
+    public void shouldExplainReportOutboxQuerySkippingDeadLetteredReports() {
+        when(database.runCommand(any(Bson.class))).thenReturn(buildExplain(new Document("stage", "EOF")));
+
+        List<QueryPlan> plans = endpoint.queryPlans();
+
+        assertThat(plans, hasItem(allOf(hasProperty("query", equalTo("loadClosedSessionsToPublish")),
+                hasProperty("filter", containsString("\"reportFailed\" : { \"$ne\" : true }")))));
+    }
+
+    private Document buildExplain(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.cooperative.assembly.scheduling;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ScheduledJobTest {
+
+    private ScheduledJob job;
+
+    @Before
+    public void setUp() {
+        job = new ScheduledJob("test-job");
+    }
+
+    @After
+    public void tearDown() {
+        job.shutdown();
+    }
+
+    @Test
+    public void shouldRunTaskOnOwnJobThreadWhenTriggered() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        StringBuilder threadName = new StringBuilder();
+
+        Boolean triggered = job.trigger(() -> {
+            threadName.append(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertThat(triggered, is(true));
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(threadName.toString(), startsWith("test-job-"));
+    }
+
+    @Test
+    public void shouldSkipRunWhenPreviousRunIsStillRunning() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        job.trigger(() -> {
+            runs.incrementAndGet();
+            awaitQuietly(release);
+        });
+        Boolean triggered = job.trigger(runs::incrementAndGet);
+        release.countDown();
+
+        assertThat(triggered, is(false));
+        awaitCompletion();
+        assertThat(runs.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldTriggerAgainWhenPreviousRunFailed() throws InterruptedException {
+        job.trigger(() -> {
+            throw new IllegalStateException("failed run");
+        });
+        awaitCompletion();
+
+        Boolean triggered = job.trigger(() -> { });
+
+        assertThat(triggered, is(true));
+    }
+
+    @Test
+    public void shouldRunOnceMoreRightAfterRunningOneWhenRunsAreRequestedMeanwhile() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        job.request(() -> {
+            runs.incrementAndGet();
+            awaitQuietly(release);
+        });
+        job.request(runs::incrementAndGet);
+        job.request(runs::incrementAndGet);
+        release.countDown();
+
+        awaitCompletion();
+        assertThat(runs.get(), equalTo(2));
+    }
+
+    private void awaitCompletion() throws InterruptedException {
+        for (int attempt = 0; attempt < 500 && job.isRunning(); attempt++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
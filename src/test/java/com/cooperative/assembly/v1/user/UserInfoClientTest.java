@@ -14,10 +14,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -25,9 +29,11 @@ import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 import static com.cooperative.assembly.v1.user.VotingAbility.ABLE_TO_VOTE;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 @RunWith(SpringRunner.class)
-@ContextConfiguration(classes = { UserInfoClient.class, RestClient.class, HttpEntityHelper.class })
+@ContextConfiguration(classes = { UserInfoClient.class, RestClient.class, HttpEntityHelper.class, UserInfoCache.class })
 @TestPropertySource(properties = {
         "api.user.info.server=http://localhost:8080",
         "api.user.info.url={server}/users/{cpf}"
@@ -43,6 +49,9 @@ public class UserInfoClientTest {
     @Autowired
     private HttpEntityHelper entityHelper;
 
+    @Autowired
+    private UserInfoCache userInfoCache;
+
     @Captor
     private ArgumentCaptor<URI> uriCaptor;
 
@@ -53,6 +62,7 @@ public class UserInfoClientTest {
     @Before
     public void setUp() {
         this.userId = "30952418010";
+        userInfoCache.invalidateAll();
     }
 
     @Test
@@ -102,4 +112,66 @@ public class UserInfoClientTest {
         assertThat(userInfo.get(), hasProperty("status", equalTo(ABLE_TO_VOTE)));
     }
 
+    @Test
+    public void shouldNotRequestUserInfoAgainWhenUserInfoWasAlreadyFoundForUserId() {
+        UserInfo expectedUserInfo = new UserInfo(ABLE_TO_VOTE);
+        ResponseEntity response = ResponseEntity.ok(expectedUserInfo);
+        when(restClient.get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class))).thenReturn(response);
+
+        client.getUserInfo(userId);
+        Optional<UserInfo> userInfo = client.getUserInfo(userId);
+
+        verify(restClient, only()).get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class));
+        assertThat(userInfo.get(), is(expectedUserInfo));
+    }
+
+    @Test
+    public void shouldNotRequestUserInfoAgainWhenUserWasNotFoundForUserId() {
+        when(restClient.get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class))).thenThrow(new HttpClientErrorException(NOT_FOUND));
+
+        client.getUserInfo(userId);
+        Optional<UserInfo> userInfo = client.getUserInfo(userId);
+
+        verify(restClient, only()).get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class));
+        assertThat(userInfo.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldRequestUserInfoAgainWhenUserInfoRequestWasRejectedForUserId() {
+        when(restClient.get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class))).thenThrow(new HttpClientErrorException(TOO_MANY_REQUESTS));
+
+        client.getUserInfo(userId);
+        Optional<UserInfo> userInfo = client.getUserInfo(userId);
+
+        verify(restClient, times(2)).get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class));
+        assertThat(userInfo.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldShareInFlightUserInfoRequestWhenConcurrentLookupsForSameUserId() throws Exception {
+        UserInfo expectedUserInfo = new UserInfo(ABLE_TO_VOTE);
+        CountDownLatch requesting = new CountDownLatch(1);
+        CountDownLatch responding = new CountDownLatch(1);
+        when(restClient.get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class))).thenAnswer(invocation -> {
+            requesting.countDown();
+            responding.await();
+            return ResponseEntity.ok(expectedUserInfo);
+        });
+
+        FutureTask<Optional<UserInfo>> firstLookup = new FutureTask<>(() -> client.getUserInfo(userId));
+        FutureTask<Optional<UserInfo>> secondLookup = new FutureTask<>(() -> client.getUserInfo(userId));
+        new Thread(firstLookup).start();
+        requesting.await();
+        Thread secondThread = new Thread(secondLookup);
+        secondThread.start();
+        while (secondThread.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        responding.countDown();
+
+        assertThat(firstLookup.get(5, SECONDS).get(), is(expectedUserInfo));
+        assertThat(secondLookup.get(5, SECONDS).get(), is(expectedUserInfo));
+        verify(restClient, only()).get(any(URI.class), any(HttpEntity.class), eq(UserInfo.class));
+    }
+
 }
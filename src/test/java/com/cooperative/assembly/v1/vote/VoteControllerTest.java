@@ -1,9 +1,12 @@
 package com.cooperative.assembly.v1.vote;
 
 import com.cooperative.assembly.error.ResponseErrorHandler;
+import com.cooperative.assembly.error.exception.NotFoundReferenceException;
+import com.cooperative.assembly.error.exception.ValidationException;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Resources;
 import org.junit.Before;
 import org.junit.Test;
@@ -18,13 +21,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static com.cooperative.assembly.v1.vote.VoteChoice.NO;
 import static com.cooperative.assembly.v1.vote.VoteChoice.YES;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -32,8 +40,16 @@ import static java.lang.Boolean.FALSE;
 import static java.util.UUID.randomUUID;
 import static java.time.LocalDateTime.now;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -48,6 +64,12 @@ public class VoteControllerTest {
     @MockBean
     private VoteService service;
 
+    @MockBean
+    private VoteExporter exporter;
+
+    @MockBean
+    private VoteImporter importer;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -87,6 +109,15 @@ public class VoteControllerTest {
     @Value("classpath:/requestMalformedEnumChoiceVoteRegister.json")
     private Resource requestMalformedEnumChoiceVoteRegister;
 
+    @Value("classpath:/requestChooseVoteBatch.json")
+    private Resource requestChooseVoteBatch;
+
+    @Value("classpath:/requestEmptyVotesVoteBatchRegister.json")
+    private Resource requestEmptyVotesVoteBatchRegister;
+
+    @Value("classpath:/requestMalformedCPFUserIdVoteBatchRegister.json")
+    private Resource requestMalformedCPFUserIdVoteBatchRegister;
+
     private String voteUUID;
     private String agendaUUID;
     private String sessionUUID;
@@ -428,6 +459,130 @@ public class VoteControllerTest {
                 .andExpect(jsonPath("$.errors[0].source.parameter").doesNotExist());
     }
 
+    @Test
+    public void shouldReturnAcceptedAndRejectedItemsWithSummaryWhenPerformBatchRegister() throws Exception {
+        final ResultActions result = performSuccessBatchRegister();
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").doesNotExist())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].index").value(0))
+                .andExpect(jsonPath("$.data[0].id").value(voteUUID))
+                .andExpect(jsonPath("$.data[0].userId").value(userId))
+                .andExpect(jsonPath("$.data[0].sessionId").value(sessionUUID))
+                .andExpect(jsonPath("$.data[0].choice").value(YES.toString()))
+                .andExpect(jsonPath("$.data[0].status").value(VoteBatchStatus.ACCEPTED.toString()))
+                .andExpect(jsonPath("$.data[0].error").doesNotExist())
+                .andExpect(jsonPath("$.data[1].index").value(1))
+                .andExpect(jsonPath("$.data[1].id").doesNotExist())
+                .andExpect(jsonPath("$.data[1].userId").value("34447251086"))
+                .andExpect(jsonPath("$.data[1].status").value(VoteBatchStatus.REJECTED.toString()))
+                .andExpect(jsonPath("$.data[1].error.code").value("ERR0400"))
+                .andExpect(jsonPath("$.data[1].error.detail").value("user.unable.to.vote"))
+                .andExpect(jsonPath("$.meta.totalVotes").value(2))
+                .andExpect(jsonPath("$.meta.acceptedVotes").value(1))
+                .andExpect(jsonPath("$.meta.rejectedVotes").value(1));
+    }
+
+    @Test
+    public void shouldReturnResponseErrorWhenTryingToPerformBatchRegisterWithEmptyVotesRequestContentProperty() throws Exception {
+        final ResultActions result = tryPerformEmptyVotesPropertyBatchRegister();
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data").doesNotExist())
+                .andExpect(jsonPath("$.errors.length()").value(1))
+                .andExpect(jsonPath("$.errors[0].code").value(requestFormatErrorCode))
+                .andExpect(jsonPath("$.errors[0].detail").value("vote.batch.votes.not.empty"))
+                .andExpect(jsonPath("$.errors[0].source.pointer").value("votes"));
+    }
+
+    @Test
+    public void shouldRejectOnlyItemWhenPerformingBatchRegisterWithMalformedCPFUserIdRequestContentProperty() throws Exception {
+        when(service.chooseVotes(anyList())).thenAnswer(invocation -> {
+            List<VoteBallot> ballots = invocation.getArgument(0);
+            ballots.get(0).accept(new Vote(voteUUID, userId, session, YES));
+            ballots.get(1).reject(new ValidationException("vote.user.id.invalid.cpf.format", "userId", "12345678901").getError());
+            return ballots;
+        });
+
+        final ResultActions result = tryPerformMalformedCPFUserIdPropertyBatchRegister();
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").doesNotExist())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].status").value(VoteBatchStatus.ACCEPTED.toString()))
+                .andExpect(jsonPath("$.data[1].userId").value("12345678901"))
+                .andExpect(jsonPath("$.data[1].status").value(VoteBatchStatus.REJECTED.toString()))
+                .andExpect(jsonPath("$.data[1].error.detail").value("vote.user.id.invalid.cpf.format"))
+                .andExpect(jsonPath("$.meta.acceptedVotes").value(1))
+                .andExpect(jsonPath("$.meta.rejectedVotes").value(1));
+    }
+
+    @Test
+    public void shouldStreamImportedRowResultsWhenImportingPaperBallots() throws Exception {
+        String results = "{\"index\":0,\"status\":\"ACCEPTED\"}\n{\"summary\":{\"totalVotes\":1}}\n";
+        when(importer.importBallots(any())).thenReturn(output -> output.write(results.getBytes(UTF_8)));
+
+        MvcResult result = mockMvc.perform(post("/cooperative/assembly/v1/vote/import")
+                .contentType("text/csv")
+                .content(userId + "," + sessionUUID + ",YES\n"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string(results));
+    }
+
+    @Test
+    public void shouldStreamSessionVotesAsAttachmentWhenExportingSessionVotes() throws Exception {
+        when(exporter.exportSessionVotes(sessionUUID, VoteExportFormat.CSV)).thenReturn(output -> output.write("id,userId,sessionId,choice\n".getBytes(UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/cooperative/assembly/v1/vote/session/{sessionId}/export", sessionUUID)
+                .param("format", "CSV"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"votes-" + sessionUUID + ".csv\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("id,userId,sessionId,choice\n"));
+    }
+
+    @Test
+    public void shouldCompressStreamedSessionVotesWhenExportingSessionVotesAcceptingGzip() throws Exception {
+        String line = "{\"id\":\"" + voteUUID + "\"}\n";
+        when(exporter.exportSessionVotes(sessionUUID, VoteExportFormat.NDJSON)).thenReturn(output -> output.write(line.getBytes(UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/cooperative/assembly/v1/vote/session/{sessionId}/export", sessionUUID)
+                .header("Accept-Encoding", "gzip, deflate"))
+                .andReturn();
+
+        MvcResult export = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(export.getResponse().getContentAsByteArray()));
+        assertThat(new String(ByteStreams.toByteArray(gzip), UTF_8), equalTo(line));
+    }
+
+    @Test
+    public void shouldReturnResponseErrorWhenExportingVotesOfMissingSession() throws Exception {
+        when(exporter.exportSessionVotes(sessionUUID, VoteExportFormat.NDJSON))
+                .thenThrow(new NotFoundReferenceException("VotingSession", "voting.session.not.found"));
+
+        mockMvc.perform(get("/cooperative/assembly/v1/vote/session/{sessionId}/export", sessionUUID))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.errors").exists())
+                .andExpect(jsonPath("$.data").doesNotExist());
+    }
+
     private ResultActions performSuccessRegister() throws Exception {
         Vote vote = new Vote(voteUUID, userId, session, YES);
         when(service.chooseVote(userId, sessionUUID, YES)).thenReturn(vote);
@@ -511,4 +666,32 @@ public class VoteControllerTest {
                 .content(bodyContent));
     }
 
+    private ResultActions performSuccessBatchRegister() throws Exception {
+        when(service.chooseVotes(anyList())).thenAnswer(invocation -> {
+            List<VoteBallot> ballots = invocation.getArgument(0);
+            ballots.get(0).accept(new Vote(voteUUID, userId, session, YES));
+            ballots.get(1).reject(new ValidationException("user.unable.to.vote", "userId", "34447251086").getError());
+            return ballots;
+        });
+
+        final String bodyContent = Resources.toString(requestChooseVoteBatch.getURL(), UTF_8);
+        return mockMvc.perform(post("/cooperative/assembly/v1/vote/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(bodyContent));
+    }
+
+    private ResultActions tryPerformEmptyVotesPropertyBatchRegister() throws Exception {
+        final String bodyContent = Resources.toString(requestEmptyVotesVoteBatchRegister.getURL(), UTF_8);
+        return mockMvc.perform(post("/cooperative/assembly/v1/vote/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(bodyContent));
+    }
+
+    private ResultActions tryPerformMalformedCPFUserIdPropertyBatchRegister() throws Exception {
+        final String bodyContent = Resources.toString(requestMalformedCPFUserIdVoteBatchRegister.getURL(), UTF_8);
+        return mockMvc.perform(post("/cooperative/assembly/v1/vote/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(bodyContent));
+    }
+
 }
@@ -0,0 +1,96 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.error.exception.NotFoundReferenceException;
+import com.cooperative.assembly.v1.voting.session.VotingSessionService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static com.cooperative.assembly.v1.vote.VoteChoice.NO;
+import static com.cooperative.assembly.v1.vote.VoteChoice.YES;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VoteExporter.class })
+public class VoteExporterTest {
+
+    @Autowired
+    private VoteExporter exporter;
+
+    @MockBean
+    private VoteRepository repository;
+
+    @MockBean
+    private VotingSessionService votingSessionService;
+
+    @Test
+    public void shouldWriteEachStreamedVoteAsJsonLineWhenExportingSessionVotesAsNdjson() throws IOException {
+        String sessionId = randomUUID().toString();
+        Vote vote1 = buildVote(sessionId, "1234567890", YES);
+        Vote vote2 = buildVote(sessionId, "0987654321", NO);
+        streamVotes(sessionId, vote1, vote2);
+
+        String export = export(sessionId, VoteExportFormat.NDJSON);
+
+        assertThat(export, equalTo(
+                "{\"id\":\"" + vote1.getId() + "\",\"userId\":\"1234567890\",\"sessionId\":\"" + sessionId + "\",\"choice\":\"YES\"}\n" +
+                "{\"id\":\"" + vote2.getId() + "\",\"userId\":\"0987654321\",\"sessionId\":\"" + sessionId + "\",\"choice\":\"NO\"}\n"));
+    }
+
+    @Test
+    public void shouldWriteHeaderAndEachStreamedVoteAsCsvLineWhenExportingSessionVotesAsCsv() throws IOException {
+        String sessionId = randomUUID().toString();
+        Vote vote = buildVote(sessionId, "1234567890", YES);
+        streamVotes(sessionId, vote);
+
+        String export = export(sessionId, VoteExportFormat.CSV);
+
+        assertThat(export, equalTo("id,userId,sessionId,choice\n" + vote.getId() + ",1234567890," + sessionId + ",YES\n"));
+    }
+
+    @Test
+    public void shouldNeverStreamVotesWhenExportingVotesOfMissingSession() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId))
+                .thenThrow(new NotFoundReferenceException("VotingSession", "voting.session.not.found"));
+
+        assertThatExceptionOfType(NotFoundReferenceException.class)
+                .isThrownBy(() -> exporter.exportSessionVotes(sessionId, VoteExportFormat.NDJSON));
+
+        verify(repository, never()).streamSessionVotes(anyString(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamVotes(final String sessionId, final Vote... votes) {
+        doAnswer(invocation -> {
+            Consumer<Vote> consumer = invocation.getArgument(1);
+            for (Vote vote : votes) {
+                consumer.accept(vote);
+            }
+            return null;
+        }).when(repository).streamSessionVotes(eq(sessionId), any(Consumer.class));
+    }
+
+    private String export(final String sessionId, final VoteExportFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exporter.exportSessionVotes(sessionId, format).writeTo(output);
+        return new String(output.toByteArray(), UTF_8);
+    }
+
+    private Vote buildVote(final String sessionId, final String userId, final VoteChoice choice) {
+        return new Vote(randomUUID().toString(), userId, sessionId, null, choice);
+    }
+
+}
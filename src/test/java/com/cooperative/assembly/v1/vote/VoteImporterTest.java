@@ -0,0 +1,217 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.cooperative.assembly.builder.VotingAgendaBuilder;
+import com.cooperative.assembly.builder.VotingSessionBuilder;
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.LocalDateTime.now;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VoteImporter.class })
+@TestPropertySource(properties = {
+        "app.config.vote.import.batchSize=2"
+})
+public class VoteImporterTest {
+
+    private static final String SESSION_ID = "2b6f8057-cd5e-4a20-afa0-c04419a8983b";
+
+    @Autowired
+    private VoteImporter importer;
+
+    @MockBean
+    private VoteService service;
+
+    @Captor
+    private ArgumentCaptor<List<VoteBallot>> ballotsCaptor;
+
+    @Test
+    public void shouldRegisterParsedRowsInBatchesWhenImportingPaperBallots() throws IOException {
+        acceptAllBallots();
+
+        importBallots("12429593009," + SESSION_ID + ",YES\n" +
+                "34447251086," + SESSION_ID + ",NO\n" +
+                "52998224725," + SESSION_ID + ",YES\n");
+
+        verify(service, times(2)).chooseVotes(ballotsCaptor.capture());
+        assertThat(ballotsCaptor.getAllValues().get(0), hasSize(2));
+        assertThat(ballotsCaptor.getAllValues().get(1), hasSize(1));
+    }
+
+    @Test
+    public void shouldStreamResultOfEachRowFollowedBySummaryWhenImportingPaperBallots() throws IOException {
+        acceptAllBallots();
+
+        List<JsonNode> results = importBallots("userId,sessionId,choice\n" +
+                "124.295.930-09," + SESSION_ID + ",yes\n" +
+                "34447251086," + SESSION_ID + ",NO\n");
+
+        assertThat(results, hasSize(3));
+        assertThat(results.get(0).get("index").asInt(), equalTo(1));
+        assertThat(results.get(0).get("userId").asText(), equalTo("12429593009"));
+        assertThat(results.get(0).get("choice").asText(), equalTo("YES"));
+        assertThat(results.get(0).get("status").asText(), equalTo("ACCEPTED"));
+        assertThat(results.get(1).get("index").asInt(), equalTo(2));
+        assertThat(results.get(2).get("summary").get("totalVotes").asInt(), equalTo(2));
+        assertThat(results.get(2).get("summary").get("acceptedVotes").asInt(), equalTo(2));
+    }
+
+    @Test
+    public void shouldIndexResultOfEachRowByItsLineOnFileWhenFileHasBlankLines() throws IOException {
+        acceptAllBallots();
+
+        List<JsonNode> results = importBallots("userId,sessionId,choice\n" +
+                "\n" +
+                "12429593009," + SESSION_ID + ",YES\n" +
+                "\n" +
+                "34447251086," + SESSION_ID + ",NO\n" +
+                "52998224725," + SESSION_ID + ",YES\n");
+
+        assertThat(results, hasSize(4));
+        assertThat(results.get(0).get("index").asInt(), equalTo(2));
+        assertThat(results.get(1).get("index").asInt(), equalTo(4));
+        assertThat(results.get(2).get("index").asInt(), equalTo(5));
+    }
+
+    @Test
+    public void shouldRejectRowsWithMalformedColumnsWithoutRegisteringThem() throws IOException {
+        acceptAllBallots();
+
+        List<JsonNode> results = importBallots("12429593009;" + SESSION_ID + ";YES\n" +
+                "34447251086," + SESSION_ID + ",NO\n");
+
+        verify(service, times(1)).chooseVotes(ballotsCaptor.capture());
+        assertThat(ballotsCaptor.getValue(), hasSize(1));
+        assertThat(results.get(0).get("status").asText(), equalTo("REJECTED"));
+        assertThat(results.get(0).get("error").get("detail").asText(), equalTo("vote.import.row.malformed"));
+        assertThat(results.get(1).get("status").asText(), equalTo("ACCEPTED"));
+        assertThat(results.get(2).get("summary").get("rejectedVotes").asInt(), equalTo(1));
+    }
+
+    @Test
+    public void shouldLeaveValidationOfParsedRowsToBatchOfVotesWhenImportingPaperBallots() throws IOException {
+        acceptAllBallots();
+
+        importBallots("12345678901," + SESSION_ID + ",maybe\n");
+
+        verify(service, times(1)).chooseVotes(ballotsCaptor.capture());
+        assertThat(ballotsCaptor.getValue(), hasSize(1));
+        assertThat(ballotsCaptor.getValue().get(0).getUserId(), equalTo("12345678901"));
+        assertThat(ballotsCaptor.getValue().get(0).getChoice(), nullValue());
+    }
+
+    @Test
+    public void shouldRejectRowsOfFailedBatchAndKeepImportingNextBatchesWhenBatchCanNotBeRegistered() throws IOException {
+        when(service.chooseVotes(anyList()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> {
+                    List<VoteBallot> ballots = invocation.getArgument(0);
+                    ballots.forEach(ballot -> ballot.accept(new Vote(randomUUID().toString(), ballot.getUserId(), buildSession(), ballot.getChoice())));
+                    return ballots;
+                });
+
+        List<JsonNode> results = importBallots("12429593009," + SESSION_ID + ",YES\n" +
+                "34447251086," + SESSION_ID + ",NO\n" +
+                "52998224725," + SESSION_ID + ",YES\n");
+
+        verify(service, times(2)).chooseVotes(anyList());
+        assertThat(results, hasSize(4));
+        assertThat(results.get(0).get("status").asText(), equalTo("REJECTED"));
+        assertThat(results.get(0).get("error").get("code").asText(), equalTo("ERR9999"));
+        assertThat(results.get(1).get("status").asText(), equalTo("REJECTED"));
+        assertThat(results.get(2).get("status").asText(), equalTo("ACCEPTED"));
+        assertThat(results.get(3).get("summary").get("acceptedVotes").asInt(), equalTo(1));
+        assertThat(results.get(3).get("summary").get("rejectedVotes").asInt(), equalTo(2));
+    }
+
+    @Test
+    public void shouldStillStreamSummaryWhenUploadedFileCanNotBeReadUntilItsEnd() {
+        InputStream input = new SequenceInputStream(new ByteArrayInputStream(("12429593009," + SESSION_ID + ",YES\n").getBytes(UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> importer.importBallots(input).writeTo(output));
+
+        assertThat(new String(output.toByteArray(), UTF_8), containsString("\"summary\""));
+    }
+
+    @Test
+    public void shouldNeverRegisterVotesWhenImportingEmptyFile() throws IOException {
+        List<JsonNode> results = importBallots("userId,sessionId,choice\n");
+
+        verify(service, never()).chooseVotes(anyList());
+        assertThat(results, hasSize(1));
+        assertThat(results.get(0).get("summary").get("totalVotes").asInt(), equalTo(0));
+    }
+
+    private void acceptAllBallots() {
+        when(service.chooseVotes(anyList())).thenAnswer(invocation -> {
+            List<VoteBallot> ballots = invocation.getArgument(0);
+            ballots.forEach(ballot -> ballot.accept(new Vote(randomUUID().toString(), ballot.getUserId(), buildSession(), ballot.getChoice())));
+            return ballots;
+        });
+    }
+
+    private List<JsonNode> importBallots(final String file) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        importer.importBallots(new ByteArrayInputStream(file.getBytes(UTF_8))).writeTo(output);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : new String(output.toByteArray(), UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private VotingSession buildSession() {
+        VotingAgenda agenda = VotingAgendaBuilder.get()
+                .with(VotingAgenda::setId, randomUUID().toString())
+                .with(VotingAgenda::setTitle, "agenda-title-1")
+                .build();
+
+        return VotingSessionBuilder.get()
+                .with(VotingSession::setId, SESSION_ID)
+                .with(VotingSession::setAgenda, agenda)
+                .with(VotingSession::setOpeningTime, now().withNano(0))
+                .with(VotingSession::setClosingTime, now().withNano(0).plusMinutes(5))
+                .with(VotingSession::setStatus, OPENED)
+                .build();
+    }
+
+}
@@ -1,10 +1,12 @@
 package com.cooperative.assembly.v1.vote;
 
 import com.cooperative.assembly.builder.*;
+import com.cooperative.assembly.config.ExecutorConfig;
 import com.cooperative.assembly.v1.user.User;
 import com.cooperative.assembly.v1.user.UserService;
 import com.cooperative.assembly.error.exception.ValidationException;
 import com.cooperative.assembly.v1.user.VotingAbility;
+import com.cooperative.assembly.v1.vote.event.VoteEventPublisher;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
 import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
@@ -18,29 +20,40 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 
+import static com.cooperative.assembly.v1.vote.VoteChoice.NO;
 import static com.cooperative.assembly.v1.vote.VoteChoice.YES;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
 import static java.lang.Boolean.FALSE;
-import static java.util.Collections.emptyList;
+import static java.lang.Boolean.TRUE;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
 import static java.util.UUID.randomUUID;
 import static java.time.LocalDateTime.now;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
 import static com.cooperative.assembly.v1.user.VotingAbility.ABLE_TO_VOTE;
 import static com.cooperative.assembly.v1.user.VotingAbility.UNABLE_TO_VOTE;
 
 @RunWith(SpringRunner.class)
-@ContextConfiguration(classes = VoteService.class)
+@ContextConfiguration(classes = { VoteService.class, ExecutorConfig.class, LocalValidatorFactoryBean.class })
 public class VoteServiceTest {
 
     @Autowired
@@ -58,15 +71,21 @@ public class VoteServiceTest {
     @MockBean
     private VotingSessionCanvassService votingSessionCanvassService;
 
+    @MockBean
+    private VoteEventPublisher voteEventPublisher;
+
     @Captor
     private ArgumentCaptor<Vote> voteCaptor;
 
     @Captor
     private ArgumentCaptor<VotingSessionCanvass> canvassCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<Vote>> votesCaptor;
+
     @Test
-    public void shouldFindVotesByUserAndAgendaWhenChooseVoteWhileCheckingIfUserAlreadyHasVotedOnGivenAgenda() {
-        String userId = "1234567890";
+    public void shouldInsertVoteStraightAwayWithoutListingPreviousVotesWhenChooseVote() {
+        String userId = "12429593009";
         User expectedUser = buildUserAble(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -76,42 +95,43 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         service.chooseVote(userId, sessionId, YES);
 
-        verify(repository, atLeastOnce()).findByUserIdAndSessionId(userId, sessionId);
+        verify(repository, only()).insert(any(Vote.class));
     }
 
     @Test
-    public void shouldReturnValidationExceptionOnTryingToChooseVoteForUserAndAgendaWhenFoundListedBetweenVotesThatAlreadyHasBeenVoted() {
+    public void shouldReturnValidationExceptionOnTryingToChooseVoteForUserAndAgendaWhenInsertFindsDuplicatedVoteKey() {
+        String userId = "12429593009";
+        User expectedUser = buildUserAble(userId);
+        when(userService.loadUser(userId)).thenReturn(expectedUser);
+
         String sessionId = randomUUID().toString();
         VotingSession expectedSession = buildSession(sessionId);
-
-        String userId = "1234567890";
-        String voteId = randomUUID().toString();
-        Vote vote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.findByUserIdAndSessionId(userId, sessionId)).thenReturn(asList(vote));
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(expectedSession);
+        when(repository.insert(any(Vote.class))).thenThrow(new DuplicateKeyException("vote_user_session"));
 
         assertThatExceptionOfType(ValidationException.class)
                 .isThrownBy(() -> service.chooseVote(userId, sessionId, YES))
-                .withMessage("Invalid parameter");
+                .withMessage("Invalid parameter")
+                .satisfies(ex -> assertThat(ex.getError(), hasProperty("detail", equalTo("vote.already.exists"))));
     }
 
     @Test
     public void shouldDontReturnAnyExceptionOnTryingToChooseVoteForUserAndAgendaWhenFoundBetweenVotesThatWasNotVotedYet() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUserAble(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
         String sessionId = randomUUID().toString();
         VotingSession expectedSession = buildSession(sessionId);
-        when(repository.findByUserIdAndSessionId(userId, sessionId)).thenReturn(emptyList());
         when(votingSessionService.loadVoteSession(sessionId)).thenReturn(expectedSession);
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         assertThatCode(() -> service.chooseVote(userId, sessionId, YES))
                 .doesNotThrowAnyException();
@@ -119,7 +139,7 @@ public class VoteServiceTest {
 
     @Test
     public void shouldLoadUserForVoteByAgendaIdWhenUserIsChoosingVote() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUserAble(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -129,7 +149,7 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         service.chooseVote(userId, sessionId, YES);
 
@@ -138,7 +158,7 @@ public class VoteServiceTest {
 
     @Test
     public void shouldLoadSessionForVoteByAgendaIdWhenUserIsChoosingVote() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUserAble(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -148,7 +168,7 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         service.chooseVote(userId, sessionId, YES);
 
@@ -157,7 +177,7 @@ public class VoteServiceTest {
 
     @Test
     public void shouldSaveVoteToUserMakeChooseOnVotingAgenda() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUserAble(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -167,19 +187,19 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         service.chooseVote(userId, sessionId, YES);
 
-        verify(repository, atLeastOnce()).save(voteCaptor.capture());
+        verify(repository, atLeastOnce()).insert(voteCaptor.capture());
         assertThat(voteCaptor.getValue(), hasProperty("userId", equalTo(expectedUser.getId())));
-        assertThat(voteCaptor.getValue(), hasProperty("session", equalTo(expectedSession)));
+        assertThat(voteCaptor.getValue(), hasProperty("sessionId", equalTo(expectedSession.getId())));
         assertThat(voteCaptor.getValue(), hasProperty("choice", equalTo(YES)));
     }
 
     @Test
     public void shouldReturnValidationExceptionWhenVoterUserIsUnableToVote() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUserUnable(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -194,7 +214,7 @@ public class VoteServiceTest {
 
     @Test
     public void shouldDontReturnAnyExceptionWhenVoterUserIsAbleToVote() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUserAble(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -204,7 +224,7 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         assertThatCode(() -> service.chooseVote(userId, sessionId, YES))
                 .doesNotThrowAnyException();
@@ -212,7 +232,7 @@ public class VoteServiceTest {
 
     @Test
     public void shouldReturnValidationExceptionWhenVotingSessionIsNoLongerOpenOnPastTimeRange() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUser(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -225,9 +245,29 @@ public class VoteServiceTest {
                 .withMessage("Invalid parameter");
     }
 
+    @Test
+    public void shouldReturnValidationExceptionWithoutWaitingUserLoadingWhenVotingSessionIsNoLongerOpen() throws Exception {
+        String userId = "12429593009";
+        CountDownLatch userLoading = new CountDownLatch(1);
+        when(userService.loadUser(userId)).thenAnswer(invocation -> {
+            userLoading.await(5, SECONDS);
+            return buildUser(userId);
+        });
+
+        String sessionId = randomUUID().toString();
+        VotingSession expectedSession = buildPastSession(sessionId);
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(expectedSession);
+
+        assertThatExceptionOfType(ValidationException.class)
+                .isThrownBy(() -> service.chooseVote(userId, sessionId, YES))
+                .withMessage("Invalid parameter");
+        assertThat(userLoading.getCount(), equalTo(1L));
+        userLoading.countDown();
+    }
+
     @Test
     public void shouldDontReturnAnyExceptionWhenVotingSessionIsStillOpenOnPresentTimeRange() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUser(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -237,7 +277,7 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         assertThatCode(() -> service.chooseVote(userId, sessionId, YES))
                 .doesNotThrowAnyException();
@@ -245,7 +285,7 @@ public class VoteServiceTest {
 
     @Test
     public void shouldReturnSessionForAgendaIdForMakeVoteOnAgendaWhenUserIsChoosingVote() {
-        String userId = "1234567890";
+        String userId = "12429593009";
         User expectedUser = buildUser(userId);
         when(userService.loadUser(userId)).thenReturn(expectedUser);
 
@@ -255,7 +295,7 @@ public class VoteServiceTest {
 
         String voteId = randomUUID().toString();
         Vote expectedVote = buildVoteYes(voteId, userId, expectedSession);
-        when(repository.save(any(Vote.class))).thenReturn(expectedVote);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
 
         Vote vote = service.chooseVote(userId, sessionId, YES);
 
@@ -264,6 +304,293 @@ public class VoteServiceTest {
         assertThat(vote, hasProperty("choice", equalTo(expectedVote.getChoice())));
     }
 
+    @Test
+    public void shouldSaveAllAcceptedBallotsWithSingleBulkInsertWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        VotingSession expectedSession = buildSession(sessionId);
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(expectedSession);
+
+        String userId1 = "12429593009";
+        String userId2 = "34447251086";
+        when(userService.loadUser(userId1)).thenReturn(buildUserAble(userId1));
+        when(userService.loadUser(userId2)).thenReturn(buildUserAble(userId2));
+
+        List<VoteBallot> ballots = asList(new VoteBallot(userId1, sessionId, YES), new VoteBallot(userId2, sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        verify(repository, times(1)).insertUnordered(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), hasSize(2));
+        assertThat(votesCaptor.getValue().get(0), hasProperty("userId", equalTo(userId1)));
+        assertThat(votesCaptor.getValue().get(0), hasProperty("choice", equalTo(YES)));
+        assertThat(votesCaptor.getValue().get(1), hasProperty("userId", equalTo(userId2)));
+        assertThat(votesCaptor.getValue().get(1), hasProperty("choice", equalTo(NO)));
+        assertThat(ballots.get(0).isAccepted(), equalTo(TRUE));
+        assertThat(ballots.get(1).isAccepted(), equalTo(TRUE));
+    }
+
+    @Test
+    public void shouldLoadEachSessionAndUserOnlyOnceWhenChoosingVotesInBatch() {
+        String sessionId1 = randomUUID().toString();
+        String sessionId2 = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId1)).thenReturn(buildSession(sessionId1));
+        when(votingSessionService.loadVoteSession(sessionId2)).thenReturn(buildSession(sessionId2));
+
+        String userId = "12429593009";
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+
+        service.chooseVotes(asList(new VoteBallot(userId, sessionId1, YES), new VoteBallot(userId, sessionId2, NO)));
+
+        verify(votingSessionService, times(1)).loadVoteSession(sessionId1);
+        verify(votingSessionService, times(1)).loadVoteSession(sessionId2);
+        verify(userService, times(1)).loadUser(userId);
+    }
+
+    @Test
+    public void shouldRejectRepeatedBallotFromSameUserOnSameSessionWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String userId = "12429593009";
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+
+        List<VoteBallot> ballots = asList(new VoteBallot(userId, sessionId, YES), new VoteBallot(userId, sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        assertThat(ballots.get(0).isAccepted(), equalTo(TRUE));
+        assertThat(ballots.get(1).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(1).getError(), hasProperty("detail", equalTo("vote.already.exists")));
+    }
+
+    @Test
+    public void shouldRejectBallotFromUserThatHasAlreadyVotedOnSessionWhenBulkInsertFindsDuplicatedVoteKey() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String votedUserId = "12429593009";
+        String userId = "34447251086";
+        when(userService.loadUser(votedUserId)).thenReturn(buildUserAble(votedUserId));
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+        when(repository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Vote> votes = invocation.getArgument(0);
+            return singletonMap(votes.get(0).getId(), new DuplicateKeyException("vote_user_session"));
+        });
+
+        List<VoteBallot> ballots = asList(new VoteBallot(votedUserId, sessionId, YES), new VoteBallot(userId, sessionId, YES));
+
+        service.chooseVotes(ballots);
+
+        assertThat(ballots.get(0).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(0).getError(), hasProperty("detail", equalTo("vote.already.exists")));
+        assertThat(ballots.get(1).isAccepted(), equalTo(TRUE));
+    }
+
+    @Test
+    public void shouldLoadUsersOfBallotsConcurrentlyWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        CountDownLatch userLoading = new CountDownLatch(2);
+        List<Boolean> concurrentLoadings = new CopyOnWriteArrayList<>();
+        when(userService.loadUser(anyString())).thenAnswer(invocation -> {
+            userLoading.countDown();
+            concurrentLoadings.add(userLoading.await(2, SECONDS));
+            return buildUserAble(invocation.getArgument(0));
+        });
+
+        List<VoteBallot> ballots = asList(new VoteBallot("12429593009", sessionId, YES), new VoteBallot("34447251086", sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        assertThat(concurrentLoadings, contains(TRUE, TRUE));
+        assertThat(ballots.get(0).isAccepted(), equalTo(TRUE));
+        assertThat(ballots.get(1).isAccepted(), equalTo(TRUE));
+    }
+
+    @Test
+    public void shouldRejectOnlyBallotWhoseVoteCouldNotBeWrittenWithItsOwnErrorAndAcceptOthers() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String failingUserId = "12429593009";
+        String userId = "34447251086";
+        when(userService.loadUser(failingUserId)).thenReturn(buildUserAble(failingUserId));
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+        when(repository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Vote> votes = invocation.getArgument(0);
+            return singletonMap(votes.get(0).getId(), new UncategorizedMongoDbException("document failed validation", null));
+        });
+
+        List<VoteBallot> ballots = asList(new VoteBallot(failingUserId, sessionId, YES), new VoteBallot(userId, sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        assertThat(ballots.get(0).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(0).getError(), hasProperty("code", equalTo("ERR9999")));
+        assertThat(ballots.get(0).getError(), hasProperty("detail", equalTo("document failed validation")));
+        assertThat(ballots.get(1).isAccepted(), equalTo(TRUE));
+        verify(votingSessionCanvassService, only()).incrementVotes(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), contains(ballots.get(1).getVote()));
+    }
+
+    @Test
+    public void shouldRejectOnlyBallotsFromUnableUserAndAcceptOthersWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String ableUserId = "12429593009";
+        String unableUserId = "34447251086";
+        when(userService.loadUser(ableUserId)).thenReturn(buildUserAble(ableUserId));
+        when(userService.loadUser(unableUserId)).thenReturn(buildUserUnable(unableUserId));
+
+        List<VoteBallot> ballots = asList(new VoteBallot(unableUserId, sessionId, YES), new VoteBallot(ableUserId, sessionId, YES));
+
+        service.chooseVotes(ballots);
+
+        assertThat(ballots.get(0).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(0).getError(), hasProperty("detail", equalTo("user.unable.to.vote")));
+        assertThat(ballots.get(1).isAccepted(), equalTo(TRUE));
+        verify(repository).insertUnordered(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), hasSize(1));
+    }
+
+    @Test
+    public void shouldRejectOnlyMalformedBallotsAndAcceptOthersWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String userId = "12429593009";
+        String malformedUserId = "12345678901";
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+
+        List<VoteBallot> ballots = asList(new VoteBallot(userId, sessionId, YES), new VoteBallot(malformedUserId, sessionId, NO),
+                new VoteBallot("34447251086", "malformed-session-id", YES), new VoteBallot("52998224725", sessionId, null));
+
+        service.chooseVotes(ballots);
+
+        assertThat(ballots.get(0).isAccepted(), equalTo(TRUE));
+        assertThat(ballots.get(1).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(1).getError(), hasProperty("detail", equalTo("vote.user.id.invalid.cpf.format")));
+        assertThat(ballots.get(1).getError(), hasProperty("source", hasProperty("pointer", equalTo("userId"))));
+        assertThat(ballots.get(2).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(2).getError(), hasProperty("source", hasProperty("pointer", equalTo("sessionId"))));
+        assertThat(ballots.get(3).isAccepted(), equalTo(FALSE));
+        assertThat(ballots.get(3).getError(), hasProperty("detail", equalTo("vote.choice.not.null")));
+        verify(userService, never()).loadUser(malformedUserId);
+        verify(repository).insertUnordered(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), hasSize(1));
+    }
+
+    @Test
+    public void shouldRejectAllBallotsFromSessionThatIsNoLongerOpenWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildPastSession(sessionId));
+
+        List<VoteBallot> ballots = asList(new VoteBallot("12429593009", sessionId, YES), new VoteBallot("34447251086", sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        assertThat(ballots.get(0).getError(), hasProperty("detail", equalTo("voting.session.no.longer.open")));
+        assertThat(ballots.get(1).getError(), hasProperty("detail", equalTo("voting.session.no.longer.open")));
+        verify(userService, never()).loadUser(anyString());
+    }
+
+    @Test
+    public void shouldIncrementSessionCanvassWithSavedVoteWhenUserIsChoosingVote() {
+        String userId = "12429593009";
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+
+        String sessionId = randomUUID().toString();
+        VotingSession expectedSession = buildSession(sessionId);
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(expectedSession);
+
+        Vote expectedVote = buildVoteYes(randomUUID().toString(), userId, expectedSession);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
+
+        service.chooseVote(userId, sessionId, YES);
+
+        verify(votingSessionCanvassService, only()).incrementVotes(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), contains(expectedVote));
+    }
+
+    @Test
+    public void shouldNeverIncrementSessionCanvassWhenVoteIsDuplicated() {
+        String userId = "12429593009";
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+        when(repository.insert(any(Vote.class))).thenThrow(new DuplicateKeyException("vote_user_session"));
+
+        assertThatExceptionOfType(ValidationException.class)
+                .isThrownBy(() -> service.chooseVote(userId, sessionId, YES));
+
+        verify(votingSessionCanvassService, never()).incrementVotes(anyList());
+    }
+
+    @Test
+    public void shouldIncrementSessionCanvassOnlyWithAcceptedBallotsWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String votedUserId = "12429593009";
+        String userId = "34447251086";
+        when(userService.loadUser(votedUserId)).thenReturn(buildUserAble(votedUserId));
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+        when(repository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Vote> votes = invocation.getArgument(0);
+            return singletonMap(votes.get(0).getId(), new DuplicateKeyException("vote_user_session"));
+        });
+
+        List<VoteBallot> ballots = asList(new VoteBallot(votedUserId, sessionId, YES), new VoteBallot(userId, sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        verify(votingSessionCanvassService, only()).incrementVotes(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), contains(ballots.get(1).getVote()));
+    }
+
+    @Test
+    public void shouldPublishVoteEventWithSavedVoteWhenUserIsChoosingVote() {
+        String userId = "12429593009";
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+
+        String sessionId = randomUUID().toString();
+        VotingSession expectedSession = buildSession(sessionId);
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(expectedSession);
+
+        Vote expectedVote = buildVoteYes(randomUUID().toString(), userId, expectedSession);
+        when(repository.insert(any(Vote.class))).thenReturn(expectedVote);
+
+        service.chooseVote(userId, sessionId, YES);
+
+        verify(voteEventPublisher, only()).publish(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), contains(expectedVote));
+    }
+
+    @Test
+    public void shouldPublishVoteEventsOnlyOfAcceptedBallotsWhenChoosingVotesInBatch() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.loadVoteSession(sessionId)).thenReturn(buildSession(sessionId));
+
+        String votedUserId = "12429593009";
+        String userId = "34447251086";
+        when(userService.loadUser(votedUserId)).thenReturn(buildUserAble(votedUserId));
+        when(userService.loadUser(userId)).thenReturn(buildUserAble(userId));
+        when(repository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Vote> votes = invocation.getArgument(0);
+            return singletonMap(votes.get(0).getId(), new DuplicateKeyException("vote_user_session"));
+        });
+
+        List<VoteBallot> ballots = asList(new VoteBallot(votedUserId, sessionId, YES), new VoteBallot(userId, sessionId, NO));
+
+        service.chooseVotes(ballots);
+
+        verify(voteEventPublisher, only()).publish(votesCaptor.capture());
+        assertThat(votesCaptor.getValue(), contains(ballots.get(1).getVote()));
+    }
+
     private User buildUserAble(String userId) {
         return buildUser(userId, ABLE_TO_VOTE);
     }
@@ -327,7 +654,8 @@ public class VoteServiceTest {
         return VoteBuilder.get()
                 .with(Vote::setId, voteId)
                 .with(Vote::setUserId, userId)
-                .with(Vote::setSession, session)
+                .with(Vote::setSessionId, session.getId())
+                .with(Vote::setSession, VoteSessionSnapshot.buildSnapshot(session))
                 .with(Vote::setChoice, choice)
                 .build();
     }
@@ -0,0 +1,88 @@
+package com.cooperative.assembly.v1.vote;
+
+import com.mongodb.client.DistinctIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Answers.RETURNS_MOCKS;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VoteSessionMigration.class })
+public class VoteSessionMigrationTest {
+
+    @Autowired
+    private VoteSessionMigration migration;
+
+    @MockBean(answer = RETURNS_MOCKS)
+    private MongoTemplate mongoTemplate;
+
+    @Captor
+    private ArgumentCaptor<IndexDefinition> indexCaptor;
+
+    private IndexOperations indexOperations;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(Vote.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(emptyList());
+
+        MongoCollection<Document> votes = mock(MongoCollection.class);
+        DistinctIterable<String> sessionIds = mock(DistinctIterable.class);
+        when(mongoTemplate.getCollectionName(Vote.class)).thenReturn("Vote");
+        when(mongoTemplate.getCollection("Vote")).thenReturn(votes);
+        when(votes.distinct(anyString(), any(Document.class), eq(String.class))).thenReturn(sessionIds);
+        when(sessionIds.into(any())).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    public void shouldEnsureUniqueUserSessionIndexBeforeApplicationIsStarted() {
+        migration.afterSingletonsInstantiated();
+
+        verify(indexOperations, only()).ensureIndex(indexCaptor.capture());
+        assertThat(indexCaptor.getValue().getIndexOptions().get("name"), equalTo("vote_user_session_id"));
+        assertThat(indexCaptor.getValue().getIndexOptions().get("unique"), equalTo(true));
+    }
+
+    @Test
+    public void shouldOnlyMigrateLegacyVotesWhenApplicationIsStarted() {
+        migration.run(new DefaultApplicationArguments(new String[0]));
+
+        verify(indexOperations, never()).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    public void shouldFailStartupWhenUniqueUserSessionIndexCanNotBeBuilt() {
+        when(indexOperations.ensureIndex(any(IndexDefinition.class))).thenThrow(new DuplicateKeyException("vote_user_session_id"));
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> migration.afterSingletonsInstantiated())
+                .withCauseInstanceOf(DuplicateKeyException.class);
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import com.cooperative.assembly.config.SchedulingConfig;
+import com.cooperative.assembly.error.exception.NotFoundReferenceException;
+import com.cooperative.assembly.scheduling.ScheduledJob;
+import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.time.LocalDateTime.now;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VoteCountingBroadcaster.class, SchedulingConfig.class })
+public class VoteCountingBroadcasterTest {
+
+    @Autowired
+    private VoteCountingBroadcaster broadcaster;
+
+    @Autowired
+    @Qualifier("countingBroadcastJob")
+    private ScheduledJob broadcastJob;
+
+    @MockBean
+    private VoteCountingService service;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        while (broadcastJob.isRunning()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldReturnEmitterWhenSubscribingToAgendaVoteCounting() {
+        String agendaId = randomUUID().toString();
+        when(service.getVoteCounting(agendaId)).thenReturn(buildCounting(10, OPENED));
+
+        SseEmitter emitter = broadcaster.subscribe(agendaId);
+
+        assertThat(emitter, notNullValue());
+    }
+
+    @Test
+    public void shouldCountVotesOnlyOnceWhenManySubscribersAreSubscribingToSameAgenda() {
+        String agendaId = randomUUID().toString();
+        when(service.getVoteCounting(agendaId)).thenReturn(buildCounting(10, OPENED));
+
+        broadcaster.subscribe(agendaId);
+        broadcaster.subscribe(agendaId);
+        broadcaster.subscribe(agendaId);
+
+        verify(service, times(1)).getVoteCounting(agendaId);
+    }
+
+    @Test
+    public void shouldCountVotesOnlyOncePerAgendaWhenBroadcastingToManySubscribers() {
+        String agendaId = randomUUID().toString();
+        when(service.getVoteCounting(agendaId)).thenReturn(buildCounting(10, OPENED), buildCounting(12, OPENED));
+        broadcaster.subscribe(agendaId);
+        broadcaster.subscribe(agendaId);
+
+        broadcaster.broadcastVoteCountings();
+
+        verify(service, times(2)).getVoteCounting(agendaId);
+    }
+
+    @Test
+    public void shouldBroadcastVoteCountingsOnItsOwnJobThreadWhenBroadcastIsScheduled() {
+        String agendaId = randomUUID().toString();
+        when(service.getVoteCounting(agendaId)).thenReturn(buildCounting(10, OPENED), buildCounting(12, OPENED));
+        broadcaster.subscribe(agendaId);
+
+        broadcaster.scheduleVoteCountingsBroadcast();
+
+        verify(service, timeout(1000).times(2)).getVoteCounting(agendaId);
+    }
+
+    @Test
+    public void shouldNeverCountVotesAgainWhenSubscribersOfClosedSessionWereCompleted() {
+        String agendaId = randomUUID().toString();
+        when(service.getVoteCounting(agendaId)).thenReturn(buildCounting(10, CLOSED));
+        broadcaster.subscribe(agendaId);
+
+        broadcaster.broadcastVoteCountings();
+        broadcaster.broadcastVoteCountings();
+
+        verify(service, times(2)).getVoteCounting(agendaId);
+    }
+
+    @Test
+    public void shouldThrowNotFoundReferenceExceptionWhenSubscribingToAgendaWithoutSession() {
+        String agendaId = randomUUID().toString();
+        when(service.getVoteCounting(agendaId)).thenThrow(new NotFoundReferenceException("VotingSession", "voting.session.not.found"));
+
+        assertThatExceptionOfType(NotFoundReferenceException.class)
+                .isThrownBy(() -> broadcaster.subscribe(agendaId));
+    }
+
+    private VoteCounting buildCounting(Integer affirmativeVotes, VotingSessionStatus status) {
+        LocalDateTime openingTime = now().withNano(0);
+        return new VoteCounting("agenda-title-1", affirmativeVotes, affirmativeVotes, 0, openingTime, openingTime.plusMinutes(5), status);
+    }
+
+}
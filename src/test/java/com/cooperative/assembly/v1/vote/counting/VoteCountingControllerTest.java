@@ -1,5 +1,6 @@
 package com.cooperative.assembly.v1.vote.counting;
 
+import com.cooperative.assembly.config.SchedulingConfig;
 import com.cooperative.assembly.error.ResponseErrorHandler;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
@@ -30,13 +31,16 @@ import static java.util.UUID.randomUUID;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest
 @EnableSpringDataWebSupport
-@ContextConfiguration(classes = { VoteCountingController.class, ResponseErrorHandler.class })
+@ContextConfiguration(classes = { VoteCountingController.class, VoteCountingBroadcaster.class, SchedulingConfig.class, ResponseErrorHandler.class })
 public class VoteCountingControllerTest {
 
     private MockMvc mockMvc;
@@ -272,6 +276,65 @@ public class VoteCountingControllerTest {
                 .andExpect(jsonPath("$.errors[0].source.parameter").value("2b6f8057-cd5e-4a20-afa0c04419a898-3b"));
     }
 
+    @Test
+    public void shouldReturnEntityTagAndImmutableCacheControlWhenSessionIsClosed() throws Exception {
+        final ResultActions result = performSuccessCountingForPastTimePeriod();
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"));
+    }
+
+    @Test
+    public void shouldNeverReturnEntityTagWhenSessionIsStillOpened() throws Exception {
+        final ResultActions result = performSuccessProcessing();
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(header().doesNotExist("Cache-Control"));
+    }
+
+    @Test
+    public void shouldReturnNotModifiedWithoutBodyWhenClosedSessionCountingMatchesGivenEntityTag() throws Exception {
+        VoteCounting counting = new VoteCounting(agendaTitle, totalVotes, affirmativeVotes, negativeVotes, openingTime.minusMinutes(10), closingTime.minusMinutes(10), CLOSED);
+        when(service.getVoteCounting(agendaUUID)).thenReturn(counting);
+
+        final ResultActions result = mockMvc.perform(get("/cooperative/assembly/v1/vote/counting")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header("If-None-Match", counting.buildETag())
+                .param("agendaId", agendaUUID));
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void shouldStartVoteCountingStreamWhenSubscribingWithValidAgendaId() throws Exception {
+        VoteCounting counting = new VoteCounting(agendaTitle, totalVotes, affirmativeVotes, negativeVotes, openingTime, closingTime, OPENED);
+        when(service.getVoteCounting(agendaUUID)).thenReturn(counting);
+
+        final ResultActions result = mockMvc.perform(get("/cooperative/assembly/v1/vote/counting/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .param("agendaId", agendaUUID));
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    public void shouldReturnResponseErrorWhenTryingToStreamVoteCountingWithWronglyFormattedAgendaId() throws Exception {
+        final ResultActions result = mockMvc.perform(get("/cooperative/assembly/v1/vote/counting/stream")
+                .param("agendaId", "2b6f8057-cd5e-4a20-afa0c04419a898-3b"));
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].detail").value("vote.counting.agenda.id.invalid.uuid.format"));
+    }
+
     private ResultActions performSuccessProcessing() throws Exception {
         VoteCounting counting = new VoteCounting(agendaTitle, totalVotes, affirmativeVotes, negativeVotes, openingTime, closingTime, OPENED);
         when(service.getVoteCounting(agendaUUID)).thenReturn(counting);
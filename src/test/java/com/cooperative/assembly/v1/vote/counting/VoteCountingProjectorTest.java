@@ -0,0 +1,107 @@
+package com.cooperative.assembly.v1.vote.counting;
+
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionClosedEvent;
+import com.cooperative.assembly.v1.voting.session.VotingSessionOpenedEvent;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassFlushedEvent;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.lang.Boolean.FALSE;
+import static java.time.LocalDateTime.now;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VoteCountingProjector.class })
+public class VoteCountingProjectorTest {
+
+    @Autowired
+    private VoteCountingProjector projector;
+
+    @MockBean
+    private VoteCountingViewRepository repository;
+
+    @Captor
+    private ArgumentCaptor<VoteCountingView> viewCaptor;
+
+    @Test
+    public void shouldSaveEmptyCountingViewWhenSessionIsOpened() {
+        String agendaId = randomUUID().toString();
+        VotingSession session = buildSession(agendaId);
+
+        projector.onVotingSessionOpened(new VotingSessionOpenedEvent(session));
+
+        verify(repository, only()).save(viewCaptor.capture());
+        assertThat(viewCaptor.getValue(), hasProperty("sessionId", equalTo(session.getId())));
+        assertThat(viewCaptor.getValue(), hasProperty("agendaId", equalTo(agendaId)));
+        assertThat(viewCaptor.getValue(), hasProperty("agenda", equalTo("agenda-title-1")));
+        assertThat(viewCaptor.getValue(), hasProperty("totalVotes", equalTo(0)));
+        assertThat(viewCaptor.getValue(), hasProperty("session", equalTo(OPENED)));
+    }
+
+    @Test
+    public void shouldIncrementCountingViewWithFlushedVotesWhenSessionCanvassIsFlushed() {
+        String sessionId = randomUUID().toString();
+
+        projector.onVotingSessionCanvassFlushed(new VotingSessionCanvassFlushedEvent(sessionId, 4, 2));
+
+        verify(repository, only()).incrementVotes(sessionId, 4, 2);
+    }
+
+    @Test
+    public void shouldNeverThrowExceptionWhenCountingViewCouldNotBeIncremented() {
+        String sessionId = randomUUID().toString();
+        doThrow(new RuntimeException("unavailable")).when(repository).incrementVotes(sessionId, 4, 2);
+
+        assertThatCode(() -> projector.onVotingSessionCanvassFlushed(new VotingSessionCanvassFlushedEvent(sessionId, 4, 2)))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    public void shouldSaveCountingViewWithFinalCanvassTotalizersWhenSessionIsClosed() {
+        VotingSession session = buildSession(randomUUID().toString());
+        session.setStatus(CLOSED);
+        VotingSessionCanvass canvass = new VotingSessionCanvass(randomUUID().toString(), "agenda-title-1", 7, 5, 2, session);
+
+        projector.onVotingSessionClosed(new VotingSessionClosedEvent(session, canvass));
+
+        verify(repository, only()).save(viewCaptor.capture());
+        assertThat(viewCaptor.getValue(), hasProperty("totalVotes", equalTo(7)));
+        assertThat(viewCaptor.getValue(), hasProperty("affirmativeVotes", equalTo(5)));
+        assertThat(viewCaptor.getValue(), hasProperty("negativeVotes", equalTo(2)));
+        assertThat(viewCaptor.getValue(), hasProperty("session", equalTo(CLOSED)));
+    }
+
+    @Test
+    public void shouldNeverThrowExceptionWhenCountingViewCouldNotBeCreated() {
+        when(repository.save(any(VoteCountingView.class))).thenThrow(new RuntimeException("unavailable"));
+
+        assertThatCode(() -> projector.onVotingSessionOpened(new VotingSessionOpenedEvent(buildSession(randomUUID().toString()))))
+                .doesNotThrowAnyException();
+    }
+
+    private VotingSession buildSession(String agendaId) {
+        LocalDateTime openingTime = now().withNano(0);
+        VotingAgenda agenda = new VotingAgenda(agendaId, "agenda-title-1");
+        return new VotingSession(randomUUID().toString(), agenda, openingTime, openingTime.plusMinutes(5), OPENED, FALSE);
+    }
+
+}
@@ -2,12 +2,15 @@ package com.cooperative.assembly.v1.vote.counting;
 
 import com.cooperative.assembly.builder.*;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.report.VotingReport;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionCache;
 import com.cooperative.assembly.v1.voting.session.VotingSessionService;
 import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
 
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassService;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +24,7 @@ import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLO
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
 import static java.lang.Boolean.FALSE;
 import static java.time.LocalDateTime.now;
+import static java.util.Optional.of;
 import static java.util.UUID.randomUUID;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -28,18 +32,29 @@ import static org.hamcrest.Matchers.hasProperty;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
-@ContextConfiguration(classes = { VoteCountingService.class, VotingSessionService.class })
+@ContextConfiguration(classes = { VoteCountingService.class, VoteCountingCache.class, VotingSessionService.class, VotingSessionCache.class })
 public class VoteCountingServiceTest {
 
     @Autowired
     private VoteCountingService service;
 
+    @Autowired
+    private VoteCountingCache closedCountingCache;
+
     @MockBean
     private VotingSessionService votingSessionService;
 
     @MockBean
     private VotingSessionCanvassService votingSessionCanvassService;
 
+    @MockBean
+    private VoteCountingViewRepository viewRepository;
+
+    @Before
+    public void setUp() {
+        closedCountingCache.invalidateAll();
+    }
+
     @Test
     public void shouldLoadVotingSessionForGivenAgendaWhenGettingVoteCounting() {
         String agendaId = randomUUID().toString();
@@ -106,6 +121,101 @@ public class VoteCountingServiceTest {
         assertThat(counting, hasProperty("session", equalTo(status)));
     }
 
+    @Test
+    public void shouldReturnVoteCountingFromCountingViewWhenAgendaHasCountingView() {
+        String agendaId = randomUUID().toString();
+        LocalDateTime openingTime = now().withNano(0);
+        VoteCountingView view = new VoteCountingView(randomUUID().toString(), agendaId, "agenda-title-1", 12, 9, 3,
+                openingTime, openingTime.plusMinutes(5), OPENED);
+        when(viewRepository.findByAgendaId(agendaId)).thenReturn(of(view));
+
+        VoteCounting counting = service.getVoteCounting(agendaId);
+
+        assertThat(counting, hasProperty("agenda", equalTo("agenda-title-1")));
+        assertThat(counting, hasProperty("totalVotes", equalTo(12)));
+        assertThat(counting, hasProperty("affirmativeVotes", equalTo(9)));
+        assertThat(counting, hasProperty("negativeVotes", equalTo(3)));
+        assertThat(counting, hasProperty("session", equalTo(OPENED)));
+    }
+
+    @Test
+    public void shouldNeverLoadSessionNorCanvassWhenAgendaHasCountingView() {
+        String agendaId = randomUUID().toString();
+        LocalDateTime openingTime = now().withNano(0);
+        VoteCountingView view = new VoteCountingView(randomUUID().toString(), agendaId, "agenda-title-1", 0, 0, 0,
+                openingTime, openingTime.plusMinutes(5), OPENED);
+        when(viewRepository.findByAgendaId(agendaId)).thenReturn(of(view));
+
+        service.getVoteCounting(agendaId);
+
+        verify(votingSessionService, never()).loadVoteSessionByAgenda(agendaId);
+        verifyZeroInteractions(votingSessionCanvassService);
+    }
+
+    @Test
+    public void shouldLoadVoteCountingOnlyOnceWhenSessionIsClosed() {
+        String agendaId = randomUUID().toString();
+        LocalDateTime openingTime = now().withNano(0);
+        VoteCountingView view = new VoteCountingView(randomUUID().toString(), agendaId, "agenda-title-1", 12, 9, 3,
+                openingTime, openingTime.plusMinutes(5), CLOSED);
+        when(viewRepository.findByAgendaId(agendaId)).thenReturn(of(view));
+
+        service.getVoteCounting(agendaId);
+        VoteCounting counting = service.getVoteCounting(agendaId);
+
+        verify(viewRepository, times(1)).findByAgendaId(agendaId);
+        assertThat(counting, hasProperty("totalVotes", equalTo(12)));
+    }
+
+    @Test
+    public void shouldLoadVoteCountingAgainWhenSessionIsStillOpened() {
+        String agendaId = randomUUID().toString();
+        LocalDateTime openingTime = now().withNano(0);
+        VoteCountingView view = new VoteCountingView(randomUUID().toString(), agendaId, "agenda-title-1", 12, 9, 3,
+                openingTime, openingTime.plusMinutes(5), OPENED);
+        when(viewRepository.findByAgendaId(agendaId)).thenReturn(of(view));
+
+        service.getVoteCounting(agendaId);
+        service.getVoteCounting(agendaId);
+
+        verify(viewRepository, times(2)).findByAgendaId(agendaId);
+    }
+
+    @Test
+    public void shouldCountVoteSessionWhenCountingViewIsStillOpenedPastItsClosingTime() {
+        String agendaId = randomUUID().toString();
+        LocalDateTime closingTime = now().withNano(0).minusMinutes(1);
+        VoteCountingView view = new VoteCountingView(randomUUID().toString(), agendaId, "agenda-title-1", 12, 9, 3,
+                closingTime.minusMinutes(5), closingTime, OPENED);
+        when(viewRepository.findByAgendaId(agendaId)).thenReturn(of(view));
+
+        VotingSession session = buildSession(randomUUID().toString(), buildAgenda(agendaId), closingTime.minusMinutes(5), closingTime, CLOSED, FALSE);
+        when(votingSessionService.loadVoteSessionByAgenda(agendaId)).thenReturn(session);
+        when(votingSessionCanvassService.reloadVotingSessionCanvass(session)).thenReturn(buildCanvass(session));
+
+        VoteCounting counting = service.getVoteCounting(agendaId);
+
+        assertThat(counting, hasProperty("totalVotes", equalTo(10)));
+        assertThat(counting, hasProperty("session", equalTo(CLOSED)));
+    }
+
+    @Test
+    public void shouldCountClosedVoteSessionFromItsVotingReportWhenThereIsOne() {
+        String agendaId = randomUUID().toString();
+        LocalDateTime closingTime = now().withNano(0).minusMinutes(1);
+        VotingSession session = buildSession(randomUUID().toString(), buildAgenda(agendaId), closingTime.minusMinutes(5), closingTime, CLOSED, FALSE);
+        session.setReport(VotingReport.buildReport(session, buildCanvass(randomUUID().toString(), "agenda-title-1", 7, 4, 3, session)));
+        when(votingSessionService.loadVoteSessionByAgenda(agendaId)).thenReturn(session);
+
+        VoteCounting counting = service.getVoteCounting(agendaId);
+
+        assertThat(counting, hasProperty("totalVotes", equalTo(7)));
+        assertThat(counting, hasProperty("affirmativeVotes", equalTo(4)));
+        assertThat(counting, hasProperty("negativeVotes", equalTo(3)));
+        assertThat(counting, hasProperty("session", equalTo(CLOSED)));
+        verifyZeroInteractions(votingSessionCanvassService);
+    }
+
     private VotingAgenda buildAgenda() {
         return buildAgenda(randomUUID().toString());
     }
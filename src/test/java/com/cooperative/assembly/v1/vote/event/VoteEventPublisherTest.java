@@ -0,0 +1,133 @@
+package com.cooperative.assembly.v1.vote.event;
+
+import com.cooperative.assembly.builder.VotingAgendaBuilder;
+import com.cooperative.assembly.builder.VotingSessionBuilder;
+import com.cooperative.assembly.v1.vote.Vote;
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static com.cooperative.assembly.v1.vote.VoteChoice.NO;
+import static com.cooperative.assembly.v1.vote.VoteChoice.YES;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.time.LocalDateTime.now;
+import static java.util.Arrays.asList;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VoteEventPublisher.class })
+@TestPropertySource(properties = {
+        "app.config.vote.event.buffer.capacity=2",
+        "app.config.vote.event.batchSize=2"
+})
+public class VoteEventPublisherTest {
+
+    @Autowired
+    private VoteEventPublisher publisher;
+
+    @MockBean(name = "jmsTemplateTopic")
+    private JmsTemplate jmsTemplateTopic;
+
+    @Before
+    public void setUp() {
+        publisher.flushAll();
+        reset(jmsTemplateTopic);
+    }
+
+    @Test
+    public void shouldOnlyBufferVoteEventsWithoutSendingWhenPublishingVotes() {
+        publisher.publish(asList(buildVote()));
+
+        assertThat(publisher.getBufferedEvents(), equalTo(1));
+        verify(jmsTemplateTopic, never()).execute(any(SessionCallback.class), anyBoolean());
+    }
+
+    @Test
+    public void shouldSendBufferedVoteEventsInBatchesWhenFlushing() {
+        publisher.publish(asList(buildVote(), buildVote()));
+
+        publisher.flushAll();
+
+        assertThat(publisher.getBufferedEvents(), equalTo(0));
+        verify(jmsTemplateTopic, times(1)).execute(any(SessionCallback.class), eq(true));
+    }
+
+    @Test
+    public void shouldKeepBufferBoundedWhenPublishingMoreVotesThanItsCapacity() {
+        publisher.publish(asList(buildVote(), buildVote(), buildVote()));
+
+        assertThat(publisher.getBufferedEvents(), equalTo(2));
+    }
+
+    @Test
+    public void shouldDropFailedBatchWhenVoteEventsCanNotBeSent() {
+        doThrow(new UncategorizedJmsException("broker unavailable"))
+                .when(jmsTemplateTopic).execute(any(SessionCallback.class), eq(true));
+        publisher.publish(asList(buildVote()));
+
+        publisher.flushAll();
+
+        assertThat(publisher.getBufferedEvents(), equalTo(0));
+    }
+
+    @Test
+    public void shouldDropFailedBatchWithoutThrowingWhenVoteEventsFailWithAnyOtherError() {
+        doThrow(new IllegalStateException("destination not resolved"))
+                .when(jmsTemplateTopic).execute(any(SessionCallback.class), eq(true));
+        publisher.publish(asList(buildVote(), buildVote()));
+
+        assertThatCode(() -> publisher.flushAll()).doesNotThrowAnyException();
+
+        assertThat(publisher.getBufferedEvents(), equalTo(0));
+    }
+
+    @Test
+    public void shouldLeaveVotingUserOutWhenBuildingVoteEvent() {
+        VotingSession session = buildSession();
+        Vote vote = new Vote(randomUUID().toString(), "1234567890", session, NO);
+
+        VoteEvent event = VoteEvent.buildEvent(vote);
+
+        assertThat(event, hasProperty("voteId", equalTo(vote.getId())));
+        assertThat(event, hasProperty("sessionId", equalTo(session.getId())));
+        assertThat(event, hasProperty("agendaId", equalTo(session.getAgenda().getId())));
+        assertThat(event, hasProperty("choice", equalTo(NO)));
+    }
+
+    private Vote buildVote() {
+        return new Vote(randomUUID().toString(), "1234567890", buildSession(), YES);
+    }
+
+    private VotingSession buildSession() {
+        VotingAgenda agenda = VotingAgendaBuilder.get()
+                .with(VotingAgenda::setId, randomUUID().toString())
+                .with(VotingAgenda::setTitle, "agenda-title-1")
+                .build();
+
+        return VotingSessionBuilder.get()
+                .with(VotingSession::setId, randomUUID().toString())
+                .with(VotingSession::setAgenda, agenda)
+                .with(VotingSession::setOpeningTime, now().withNano(0))
+                .with(VotingSession::setClosingTime, now().withNano(0).plusMinutes(5))
+                .with(VotingSession::setStatus, OPENED)
+                .build();
+    }
+
+}
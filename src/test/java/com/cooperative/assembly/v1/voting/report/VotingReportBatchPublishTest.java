@@ -0,0 +1,222 @@
+package com.cooperative.assembly.v1.voting.report;
+
+import com.cooperative.assembly.builder.VotingAgendaBuilder;
+import com.cooperative.assembly.builder.VotingSessionBuilder;
+import com.cooperative.assembly.builder.VotingSessionCanvassBuilder;
+import com.cooperative.assembly.config.SchedulingConfig;
+import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionCache;
+import com.cooperative.assembly.v1.voting.session.VotingSessionService;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.jms.support.destination.DynamicDestinationResolver;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.List;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static java.lang.Boolean.FALSE;
+import static java.time.LocalDateTime.now;
+import static java.util.Arrays.asList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VotingReportMessageProducer.class, VotingSessionService.class, VotingSessionCache.class, SchedulingConfig.class })
+@TestPropertySource(properties = {
+        "spring.activemq.application.queue.name=assembly-voting-results",
+        "app.config.voting.report.dispatch.batchSize=2"
+})
+public class VotingReportBatchPublishTest {
+
+    private static final String APPLICATION_QUEUE_NAME = "assembly-voting-results";
+
+    @Autowired
+    private VotingReportMessageProducer messageProducer;
+
+    @MockBean
+    private VotingSessionService service;
+
+    @MockBean
+    private VotingSessionCanvassService votingSessionCanvassService;
+
+    @MockBean(name = "jmsTemplate")
+    private JmsTemplate jmsTemplate;
+
+    @MockBean(name = "jmsBatchTemplate")
+    private JmsTemplate jmsBatchTemplate;
+
+    @MockBean
+    private VotingReportMapper reportMapper;
+
+    @Captor
+    private ArgumentCaptor<SessionCallback<Object>> callbackCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<String>> sessionIdsCaptor;
+
+    @Test
+    public void shouldSendWholeBatchOfReportsAtOnceWhenReportClosedSessionResults() {
+        VotingSession session1 = buildSession();
+        VotingSession session2 = buildSession();
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session1, session2), asList());
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(jmsBatchTemplate, times(1)).execute(any(SessionCallback.class), eq(true));
+        verify(jmsTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldMarkWholeBatchAsPublishedWhenBatchOfReportsWasSent() {
+        VotingSession session1 = buildSession();
+        VotingSession session2 = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session1, session2), asList());
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(1)).markSessionsPublished(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(session1.getId(), session2.getId()));
+    }
+
+    @Test
+    public void shouldSendBatchWithoutReportsThatCouldNotBeBuiltAndMarkTheirSessionsAsFailed() {
+        VotingSession failingSession = buildSession();
+        VotingSession session = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(failingSession, session), asList());
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(empty(), of("report"));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(jmsBatchTemplate, times(1)).execute(any(SessionCallback.class), eq(true));
+        verify(service, times(1)).markSessionsPublished(asList(session.getId()));
+        verify(service, times(1)).markSessionReportsFailed(asList(failingSession.getId()));
+    }
+
+    @Test
+    public void shouldSendReportsBuiltSoFarAndLeaveTheOthersOnOutboxWhenVotingReportCanNotBeLoadedFromDatabase() {
+        VotingSession session = buildSession();
+        VotingSession failingSession = buildSession();
+        failingSession.setReport(null);
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session, failingSession), asList());
+        when(votingSessionCanvassService.closeVotingSessionCanvass(failingSession))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(1)).loadClosedSessionsToPublish(2);
+        verify(service, times(1)).markSessionsPublished(asList(session.getId()));
+        verify(service, never()).markSessionReportsFailed(anyList());
+    }
+
+    @Test
+    public void shouldNeverMarkAnySessionAsPublishedWhenBatchOfReportsCanNotBeSent() {
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(buildSession(), buildSession()));
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+        doThrow(new UncategorizedJmsException("broker unavailable"))
+                .when(jmsBatchTemplate).execute(any(SessionCallback.class), eq(true));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(1)).loadClosedSessionsToPublish(2);
+        verify(service, never()).markSessionsPublished(anyList());
+    }
+
+    @Test
+    public void shouldSendEachReportThroughSingleProducerAndCommitOnceWhenSendingBatch() throws JMSException {
+        Session session = mockTransactedSession();
+        MessageProducer producer = session.createProducer(null);
+
+        messageProducer.sendReportMessages(asList("report-1", "report-2"));
+        verify(jmsBatchTemplate).execute(callbackCaptor.capture(), eq(true));
+        callbackCaptor.getValue().doInJms(session);
+
+        verify(producer, times(2)).send(any(TextMessage.class));
+        verify(session, times(1)).commit();
+        verify(session, never()).rollback();
+        verify(producer, times(1)).close();
+    }
+
+    @Test
+    public void shouldRollbackBatchWhenAnyReportCanNotBeSent() throws JMSException {
+        Session session = mockTransactedSession();
+        MessageProducer producer = session.createProducer(null);
+        doNothing().doThrow(new JMSException("broker unavailable")).when(producer).send(any(TextMessage.class));
+
+        messageProducer.sendReportMessages(asList("report-1", "report-2"));
+        verify(jmsBatchTemplate).execute(callbackCaptor.capture(), eq(true));
+        try {
+            callbackCaptor.getValue().doInJms(session);
+        } catch (JMSException ex) {
+            // expected to be translated by the template
+        }
+
+        verify(session, never()).commit();
+        verify(session, times(1)).rollback();
+        verify(producer, times(1)).close();
+    }
+
+    private Session mockTransactedSession() throws JMSException {
+        Session session = mock(Session.class);
+        MessageProducer producer = mock(MessageProducer.class);
+        when(session.getTransacted()).thenReturn(true);
+        when(session.createQueue(APPLICATION_QUEUE_NAME)).thenReturn(mock(Queue.class));
+        when(session.createProducer(any())).thenReturn(producer);
+        when(session.createTextMessage(anyString())).thenReturn(mock(TextMessage.class));
+        when(jmsBatchTemplate.getDestinationResolver()).thenReturn(new DynamicDestinationResolver());
+        return session;
+    }
+
+    private VotingSession buildSession() {
+        VotingAgenda agenda = VotingAgendaBuilder.get()
+                .with(VotingAgenda::setId, randomUUID().toString())
+                .with(VotingAgenda::setTitle, "agenda-title-1")
+                .build();
+
+        VotingSession session = VotingSessionBuilder.get()
+                .with(VotingSession::setId, randomUUID().toString())
+                .with(VotingSession::setAgenda, agenda)
+                .with(VotingSession::setOpeningTime, now().withNano(0).minusMinutes(5))
+                .with(VotingSession::setClosingTime, now().withNano(0))
+                .with(VotingSession::setStatus, CLOSED)
+                .with(VotingSession::setPublished, FALSE)
+                .build();
+
+        VotingSessionCanvass canvass = VotingSessionCanvassBuilder.get()
+                .with(VotingSessionCanvass::setId, randomUUID().toString())
+                .with(VotingSessionCanvass::setTitle, "agenda-title-1")
+                .with(VotingSessionCanvass::setTotalVotes, 10)
+                .with(VotingSessionCanvass::setAffirmativeVotes, 8)
+                .with(VotingSessionCanvass::setNegativeVotes, 2)
+                .with(VotingSessionCanvass::setSession, session)
+                .build();
+        session.setReport(VotingReport.buildReport(session, canvass));
+        return session;
+    }
+
+}
@@ -1,8 +1,11 @@
 package com.cooperative.assembly.v1.voting.report;
 
 import com.cooperative.assembly.builder.*;
+import com.cooperative.assembly.config.SchedulingConfig;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionCache;
+import com.cooperative.assembly.v1.voting.session.VotingSessionClosedEvent;
 import com.cooperative.assembly.v1.voting.session.VotingSessionService;
 import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
@@ -14,6 +17,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jms.UncategorizedJmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
@@ -33,13 +38,18 @@ import static java.util.Optional.empty;
 import static java.util.UUID.randomUUID;
 import static java.util.Optional.of;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
-@ContextConfiguration(classes = { VotingReportMessageProducer.class, VotingSessionService.class })
-@TestPropertySource(properties = { "spring.activemq.application.queue.name=assembly-voting-results" })
+@ContextConfiguration(classes = { VotingReportMessageProducer.class, VotingSessionService.class, VotingSessionCache.class, SchedulingConfig.class })
+@TestPropertySource(properties = {
+        "spring.activemq.application.queue.name=assembly-voting-results",
+        "app.config.voting.report.dispatch.batchSize=2",
+        "app.config.voting.report.dispatch.batchPublish=false"
+})
 public class VotingReportMessageProducerTest {
 
     private static final String APPLICATION_QUEUE_NAME = "assembly-voting-results";
@@ -53,9 +63,12 @@ public class VotingReportMessageProducerTest {
     @MockBean
     private VotingSessionCanvassService votingSessionCanvassService;
 
-    @MockBean
+    @MockBean(name = "jmsTemplate")
     private JmsTemplate jmsTemplate;
 
+    @MockBean(name = "jmsBatchTemplate")
+    private JmsTemplate jmsBatchTemplate;
+
     @MockBean
     private VotingReportMapper reportMapper;
 
@@ -65,11 +78,14 @@ public class VotingReportMessageProducerTest {
     @Captor
     private ArgumentCaptor<VotingSession> sessionCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<String>> sessionIdsCaptor;
+
     @Test
     public void shouldLoadClosedSessionsToPublishWhenReportClosedSessionResults() {
         messageProducer.reportClosedSessionResults();
 
-        verify(service, only()).loadClosedSessionsToPublish();
+        verify(service, only()).loadClosedSessionsToPublish(2);
     }
 
     @Test
@@ -77,12 +93,12 @@ public class VotingReportMessageProducerTest {
         VotingSession session1 = buildSession();
         VotingSession session2 = buildSession();
         List<VotingSession> sessions = asList(session1, session2);
-        when(service.loadClosedSessionsToPublish()).thenReturn(sessions);
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(sessions, emptyList());
 
         VotingSessionCanvass canvass1 = buildCanvass(session1);
         VotingSessionCanvass canvass2 = buildCanvass(session1);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session1))).thenReturn(canvass1);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session2))).thenReturn(canvass2);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session1))).thenReturn(canvass1);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session2))).thenReturn(canvass2);
 
         messageProducer.reportClosedSessionResults();
 
@@ -100,13 +116,13 @@ public class VotingReportMessageProducerTest {
         LocalDateTime openingTime = now().withNano(0);
         LocalDateTime closingTime = openingTime.plusMinutes(5);
         VotingSession session = buildSession(sessionId, agenda, openingTime, closingTime, OPENED, FALSE);
-        when(service.loadClosedSessionsToPublish()).thenReturn(asList(session));
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
 
         Integer totalVotes = 10;
         Integer affirmativeVotes = 8;
         Integer negativeVotes = 2;
         VotingSessionCanvass canvass = buildCanvass(canvassId, agendaTitle, totalVotes, affirmativeVotes, negativeVotes, session);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session))).thenReturn(canvass);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session))).thenReturn(canvass);
 
         messageProducer.reportClosedSessionResults();
 
@@ -123,10 +139,10 @@ public class VotingReportMessageProducerTest {
     @Test
     public void shouldConvertToReportAndSendAsMessageForEachSessionCanvassWhenLoadingClosedSessionsToPublish() throws Exception {
         VotingSession session = buildSession();
-        when(service.loadClosedSessionsToPublish()).thenReturn(asList(session));
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
 
         VotingSessionCanvass canvass = buildCanvass(session);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session))).thenReturn(canvass);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session))).thenReturn(canvass);
 
         VotingReport report = VotingReport.buildReport(session, canvass);
         String reportAsString = new ObjectMapper().writeValueAsString(report);
@@ -138,7 +154,7 @@ public class VotingReportMessageProducerTest {
     }
 
     @Test
-    public void shouldSaveEachSessionCanvassWithTruePublishedWhenLoadingClosedSessionsToPublish() throws Exception {
+    public void shouldMarkEachSessionAsPublishedWhenLoadingClosedSessionsToPublish() throws Exception {
         String agendaId = randomUUID().toString();
         String agendaTitle = "agenda-title-1";
         VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
@@ -147,14 +163,14 @@ public class VotingReportMessageProducerTest {
         LocalDateTime openingTime = now().withNano(0);
         LocalDateTime closingTime = openingTime.plusMinutes(5);
         VotingSession session = buildSession(sessionId, agenda, openingTime, closingTime, CLOSED, FALSE);
-        when(service.loadClosedSessionsToPublish()).thenReturn(asList(session));
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
 
         String canvassId = randomUUID().toString();
         Integer totalVotes = 10;
         Integer affirmativeVotes = 8;
         Integer negativeVotes = 2;
         VotingSessionCanvass canvass = buildCanvass(canvassId, agendaTitle, totalVotes, affirmativeVotes, negativeVotes, session);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session))).thenReturn(canvass);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session))).thenReturn(canvass);
 
         VotingReport report = VotingReport.buildReport(session, canvass);
         String reportAsString = new ObjectMapper().writeValueAsString(report);
@@ -162,19 +178,13 @@ public class VotingReportMessageProducerTest {
 
         messageProducer.reportClosedSessionResults();
 
-        verify(service, atLeastOnce()).saveSession(sessionCaptor.capture());
-        assertThat(sessionCaptor.getValue(), hasProperty("id", equalTo(sessionId)));
-        assertThat(sessionCaptor.getValue(), hasProperty("agenda", hasProperty("id", equalTo(agendaId))));
-        assertThat(sessionCaptor.getValue(), hasProperty("agenda", hasProperty("title", equalTo(agendaTitle))));
-        assertThat(sessionCaptor.getValue(), hasProperty("openingTime", equalTo(openingTime)));
-        assertThat(sessionCaptor.getValue(), hasProperty("closingTime", equalTo(closingTime)));
-        assertThat(sessionCaptor.getValue(), hasProperty("status", equalTo(CLOSED)));
-        assertThat(sessionCaptor.getValue(), hasProperty("published", equalTo(TRUE)));
+        verify(service, atLeastOnce()).markSessionsPublished(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(sessionId));
     }
 
     @Test
     public void shouldNeverConvertAnyReportWhenCanNotLoadAnyClosedSessionToPublish() {
-        when(service.loadClosedSessionsToPublish()).thenReturn(emptyList());
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(emptyList());
 
         messageProducer.reportClosedSessionResults();
 
@@ -184,10 +194,10 @@ public class VotingReportMessageProducerTest {
     @Test
     public void shouldNeverReportAnyMessageWhenCanNotConvertCanvassVotingReportIntoJsonForAnyClosedSessionToPublish() {
         VotingSession session = buildSession();
-        when(service.loadClosedSessionsToPublish()).thenReturn(asList(session));
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
 
         VotingSessionCanvass canvass = buildCanvass(session);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session))).thenReturn(canvass);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session))).thenReturn(canvass);
         when(reportMapper.toJson(any(VotingReport.class))).thenReturn(empty());
 
         messageProducer.reportClosedSessionResults();
@@ -196,17 +206,161 @@ public class VotingReportMessageProducerTest {
     }
 
     @Test
-    public void shouldNeverSaveAnyCanvassStatusWhenCanNotConvertCanvassVotingReportIntoJsonForAnyClosedSessionToPublish() {
+    public void shouldNeverMarkAnySessionAsPublishedWhenCanNotConvertCanvassVotingReportIntoJsonForAnyClosedSessionToPublish() {
         VotingSession session = buildSession();
-        when(service.loadClosedSessionsToPublish()).thenReturn(asList(session));
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
         when(reportMapper.toJson(any(VotingReport.class))).thenReturn(empty());
 
         VotingSessionCanvass canvass = buildCanvass(session);
-        when(votingSessionCanvassService.reloadVotingSessionCanvass(eq(session))).thenReturn(canvass);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session))).thenReturn(canvass);
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, never()).markSessionsPublished(anyList());
+    }
+
+    @Test
+    public void shouldSendReportWrittenOnSessionClosingWithoutReloadingCanvassWhenLoadingClosedSessionsToPublish() throws Exception {
+        VotingSession session = buildSession(randomUUID().toString(), buildAgenda(), now().withNano(0), now().withNano(0).plusMinutes(5), CLOSED, FALSE);
+        VotingReport report = VotingReport.buildReport(session, buildCanvass(session));
+        session.setReport(report);
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
+
+        String reportAsString = new ObjectMapper().writeValueAsString(report);
+        when(reportMapper.toJson(report)).thenReturn(of(reportAsString));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(votingSessionCanvassService, never()).closeVotingSessionCanvass(any(VotingSession.class));
+        verify(jmsTemplate, only()).convertAndSend(APPLICATION_QUEUE_NAME, reportAsString);
+    }
+
+    @Test
+    public void shouldFinalizeCanvassAndSendReportOfSessionClosedBySweepThatCrashedBeforeWritingItsReport() throws Exception {
+        VotingSession session = buildSession(randomUUID().toString(), buildAgenda(), now().withNano(0).minusMinutes(5), now().withNano(0), CLOSED, FALSE);
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
+
+        VotingSessionCanvass canvass = buildCanvass(session);
+        when(votingSessionCanvassService.closeVotingSessionCanvass(session)).thenReturn(canvass);
+
+        VotingReport report = VotingReport.buildReport(session, canvass);
+        String reportAsString = new ObjectMapper().writeValueAsString(report);
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of(reportAsString));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(votingSessionCanvassService, times(1)).closeVotingSessionCanvass(session);
+        verify(reportMapper, times(1)).toJson(reportCaptor.capture());
+        assertThat(reportCaptor.getValue(), equalTo(report));
+        verify(jmsTemplate, only()).convertAndSend(APPLICATION_QUEUE_NAME, reportAsString);
+        verify(service, times(1)).markSessionsPublished(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(session.getId()));
+    }
+
+    @Test
+    public void shouldMarkSessionAsFailedWhenCanNotConvertItsVotingReportIntoJson() {
+        VotingSession session = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(eq(session))).thenReturn(buildCanvass(session));
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(empty());
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(1)).markSessionReportsFailed(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(session.getId()));
+    }
+
+    @Test
+    public void shouldKeepPublishingOtherReportsAndMarkSessionAsFailedWhenItsVotingReportCanNotBeLoaded() {
+        VotingSession failingSession = buildSession();
+        VotingSession session = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(failingSession, session), emptyList());
+        when(votingSessionCanvassService.closeVotingSessionCanvass(failingSession)).thenThrow(new IllegalStateException("corrupted canvass"));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(session)).thenReturn(buildCanvass(session));
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(jmsTemplate, only()).convertAndSend(APPLICATION_QUEUE_NAME, "report");
+        verify(service, times(1)).markSessionsPublished(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(session.getId()));
+        verify(service, times(1)).markSessionReportsFailed(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(failingSession.getId()));
+    }
+
+    @Test
+    public void shouldLeaveSessionOnOutboxAndStopDrainingWhenItsVotingReportCanNotBeLoadedFromDatabase() {
+        VotingSession session = buildSession();
+        VotingSession failingSession = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session, failingSession), emptyList());
+        when(votingSessionCanvassService.closeVotingSessionCanvass(session)).thenReturn(buildCanvass(session));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(failingSession))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(1)).loadClosedSessionsToPublish(2);
+        verify(service, times(1)).markSessionsPublished(asList(session.getId()));
+        verify(service, never()).markSessionReportsFailed(anyList());
+    }
+
+    @Test
+    public void shouldDrainNextBatchWhenWholeBatchWasPublishedOrMarkedAsFailed() {
+        VotingSession failingSession = buildSession();
+        VotingSession session1 = buildSession();
+        VotingSession session2 = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(failingSession, session1), asList(session2));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(any(VotingSession.class))).thenReturn(buildCanvass());
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(empty(), of("report"));
 
         messageProducer.reportClosedSessionResults();
 
-        verify(service, never()).saveSession(any(VotingSession.class));
+        verify(service, times(2)).loadClosedSessionsToPublish(2);
+        verify(jmsTemplate, times(2)).convertAndSend(APPLICATION_QUEUE_NAME, "report");
+        verify(service, times(1)).markSessionReportsFailed(asList(failingSession.getId()));
+    }
+
+    @Test
+    public void shouldOnlyMarkSentReportsAsPublishedWhenReportMessageCanNotBeSent() {
+        VotingSession session1 = buildSession();
+        VotingSession session2 = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session1, session2));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(any(VotingSession.class))).thenReturn(buildCanvass());
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report-1"), of("report-2"));
+        doNothing().doThrow(new UncategorizedJmsException("broker is unavailable"))
+                .when(jmsTemplate).convertAndSend(eq(APPLICATION_QUEUE_NAME), anyString());
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(1)).loadClosedSessionsToPublish(2);
+        verify(service, times(1)).markSessionsPublished(sessionIdsCaptor.capture());
+        assertThat(sessionIdsCaptor.getValue(), contains(session1.getId()));
+    }
+
+    @Test
+    public void shouldDrainNextBatchWhenWholeBatchOfReportsWasPublished() {
+        VotingSession session1 = buildSession();
+        VotingSession session2 = buildSession();
+        VotingSession session3 = buildSession();
+        when(service.loadClosedSessionsToPublish(anyInt())).thenReturn(asList(session1, session2), asList(session3));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(any(VotingSession.class))).thenReturn(buildCanvass());
+        when(reportMapper.toJson(any(VotingReport.class))).thenReturn(of("report"));
+
+        messageProducer.reportClosedSessionResults();
+
+        verify(service, times(2)).loadClosedSessionsToPublish(2);
+        verify(jmsTemplate, times(3)).convertAndSend(APPLICATION_QUEUE_NAME, "report");
+        verify(service, times(2)).markSessionsPublished(anyList());
+    }
+
+    @Test
+    public void shouldDispatchClosedSessionResultsRightAwayWhenSessionIsClosed() {
+        VotingSession session = buildSession();
+
+        messageProducer.onVotingSessionClosed(new VotingSessionClosedEvent(session, buildCanvass(session)));
+
+        verify(service, timeout(1000)).loadClosedSessionsToPublish(2);
     }
 
     private VotingAgenda buildAgenda() {
@@ -32,6 +32,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.UUID.randomUUID;
 import static java.time.LocalDateTime.now;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -80,6 +81,9 @@ public class VotingSessionControllerTest {
     @Value("classpath:/requestZeroDeadlineMinutesVotingSessionOpening.json")
     private Resource requestZeroDeadlineMinutesVotingSessionOpening;
 
+    @Value("classpath:/requestExtraCanvassShardsVotingSessionOpening.json")
+    private Resource requestExtraCanvassShardsVotingSessionOpening;
+
     private String canvassUUID;
     private String sessionUUID;
     private String agendaUUID;
@@ -365,6 +369,20 @@ public class VotingSessionControllerTest {
                 .andExpect(jsonPath("$.errors[0].source.parameter").value(0L));
     }
 
+    @Test
+    public void shouldReturnInvalidResponseErrorWhenTryingToPerformVotingSessionOpeningWithExtraCanvassShardsRequestContentProperty() throws Exception {
+        final ResultActions result = tryOpenSessionWithExtraCanvassShards();
+
+        result.andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.length()").value(1))
+                .andExpect(jsonPath("$.errors[0].code").value(requestFormatErrorCode))
+                .andExpect(jsonPath("$.errors[0].title").value(incorrectRequestFormat))
+                .andExpect(jsonPath("$.errors[0].detail").value("voting.session.canvass.shards.invalid"))
+                .andExpect(jsonPath("$.errors[0].source.pointer").value("canvassShards"))
+                .andExpect(jsonPath("$.errors[0].source.parameter").value(65));
+    }
+
     @Test
     public void shouldReturnOpenedVotingSessionWithPeriodTimesBasedOnDefaultDeadlineMinutesValue() throws Exception {
         final ResultActions result = performNullDeadlineMinutesOpeningSession();
@@ -413,7 +431,7 @@ public class VotingSessionControllerTest {
     private ResultActions performSuccessOpening() throws Exception {
         VotingAgenda agenda = new VotingAgenda(agendaUUID, agendaTitle);
         VotingSession votingSession = new VotingSession(sessionUUID, agenda, openingTime, closingTime, OPENED, FALSE);
-        when(votingSessionService.openFor(agendaUUID, deadlineMinutes)).thenReturn(votingSession);
+        when(votingSessionService.openFor(agendaUUID, deadlineMinutes, null)).thenReturn(votingSession);
 
         final String bodyContent = Resources.toString(requestOpenVotingSession.getURL(), UTF_8);
         return mockMvc.perform(post("/cooperative/assembly/v1/voting/session")
@@ -424,7 +442,7 @@ public class VotingSessionControllerTest {
     private ResultActions performSuccessOpeningPast() throws Exception {
         VotingAgenda agenda = new VotingAgenda(agendaUUID, agendaTitle);
         VotingSession votingSession = new VotingSession(sessionUUID, agenda, openingTime.minusMinutes(10), closingTime.minusMinutes(10), CLOSED, FALSE);
-        when(votingSessionService.openFor(agendaUUID, deadlineMinutes)).thenReturn(votingSession);
+        when(votingSessionService.openFor(agendaUUID, deadlineMinutes, null)).thenReturn(votingSession);
 
         final String bodyContent = Resources.toString(requestOpenVotingSession.getURL(), UTF_8);
         return mockMvc.perform(post("/cooperative/assembly/v1/voting/session")
@@ -481,10 +499,17 @@ public class VotingSessionControllerTest {
                 .content(bodyContent));
     }
 
+    private ResultActions tryOpenSessionWithExtraCanvassShards() throws Exception {
+        final String bodyContent = Resources.toString(requestExtraCanvassShardsVotingSessionOpening.getURL(), UTF_8);
+        return mockMvc.perform(post("/cooperative/assembly/v1/voting/session")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(bodyContent));
+    }
+
     private ResultActions performNullDeadlineMinutesOpeningSession() throws Exception {
         VotingAgenda agenda = new VotingAgenda(agendaUUID, agendaTitle);
         VotingSession votingSession = new VotingSession(sessionUUID, agenda, openingTime, closingTimeBasedOnDefaultDeadline, OPENED, FALSE);
-        when(votingSessionService.openFor(agendaUUID, DEFAULT_DEADLINE_MINUTES)).thenReturn(votingSession);
+        when(votingSessionService.openFor(agendaUUID, DEFAULT_DEADLINE_MINUTES, null)).thenReturn(votingSession);
 
         final String bodyContent = Resources.toString(requestNullDeadlineMinutesVotingSessionOpening.getURL(), UTF_8);
         return mockMvc.perform(post("/cooperative/assembly/v1/voting/session")
@@ -493,7 +518,7 @@ public class VotingSessionControllerTest {
     }
 
     private ResultActions tryOpenSessionWithNotFoundException() throws Exception {
-        when(votingSessionService.openFor(anyString(), anyLong())).thenThrow(new NotFoundReferenceException("VotingAgenda", "voting.agenda.not.found"));
+        when(votingSessionService.openFor(anyString(), anyLong(), any())).thenThrow(new NotFoundReferenceException("VotingAgenda", "voting.agenda.not.found"));
 
         final String bodyContent = Resources.toString(requestOpenVotingSession.getURL(), UTF_8);
         return mockMvc.perform(post("/cooperative/assembly/v1/voting/session")
@@ -502,7 +527,7 @@ public class VotingSessionControllerTest {
     }
 
     private ResultActions tryOpenSessionWithValidationException() throws Exception {
-        when(votingSessionService.openFor(anyString(), anyLong())).thenThrow(new ValidationException("voting.session.already.opened"));
+        when(votingSessionService.openFor(anyString(), anyLong(), any())).thenThrow(new ValidationException("voting.session.already.opened"));
 
         final String bodyContent = Resources.toString(requestOpenVotingSession.getURL(), UTF_8);
         return mockMvc.perform(post("/cooperative/assembly/v1/voting/session")
@@ -8,12 +8,15 @@ import com.cooperative.assembly.error.exception.NotFoundReferenceException;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgendaService;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -23,6 +26,7 @@ import java.util.List;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
 import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
 import static java.util.Optional.empty;
 import static java.util.Arrays.asList;
 import static java.util.UUID.randomUUID;
@@ -37,12 +41,15 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatCode;
 
 @RunWith(SpringRunner.class)
-@ContextConfiguration(classes = { VotingSessionService.class })
+@ContextConfiguration(classes = { VotingSessionService.class, VotingSessionCache.class })
 public class VotingSessionServiceTest {
 
     @Autowired
     private VotingSessionService service;
 
+    @Autowired
+    private VotingSessionCache sessionCache;
+
     @MockBean
     private VotingSessionRepository repository;
 
@@ -55,6 +62,11 @@ public class VotingSessionServiceTest {
     @Captor
     private ArgumentCaptor<LocalDateTime> timeCaptor;
 
+    @Before
+    public void setUp() {
+        sessionCache.invalidateAll();
+    }
+
     @Test
     public void shouldFindSessionByAgendaIdToCheckIfAlreadyExistsSomeSessionOpenedForGivenAgenda() {
         Long deadlineMinutes = 5L;
@@ -127,6 +139,18 @@ public class VotingSessionServiceTest {
         assertThat(votingSessionCaptor.getValue(), hasProperty("published", equalTo(FALSE)));
     }
 
+    @Test
+    public void shouldSaveVotingSessionWithCanvassShardsWhenOpeningShardedSession() {
+        String agendaId = randomUUID().toString();
+        when(votingAgendaService.loadAgenda(agendaId)).thenReturn(of(buildAgenda(agendaId)));
+
+        service.openFor(agendaId, 5L, 8);
+
+        verify(repository).save(votingSessionCaptor.capture());
+        assertThat(votingSessionCaptor.getValue(), hasProperty("canvassShards", equalTo(8)));
+        assertThat(votingSessionCaptor.getValue().isCanvassSharded(), is(TRUE));
+    }
+
     @Test
     public void shouldReturnSavedVotingSessionAsIs() {
         Long deadlineMinutes = 5L;
@@ -221,51 +245,119 @@ public class VotingSessionServiceTest {
     }
 
     @Test
-    public void shouldLoadOpenedSessionCanvassesWhenLoadingMissClosedSessions() {
-        service.loadMissClosedSessions();
+    public void shouldLoadSessionFromCacheWhenItWasAlreadyLoaded() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId);
+        when(repository.findById(sessionId)).thenReturn(of(session));
+
+        service.loadVoteSession(sessionId);
+        VotingSession cachedSession = service.loadVoteSession(sessionId);
 
-        verify(repository, only()).findByStatusAndClosingTimeBefore(eq(OPENED.toString()), any(LocalDateTime.class));
+        verify(repository, times(1)).findById(sessionId);
+        assertThat(cachedSession, hasProperty("id", equalTo(sessionId)));
     }
 
     @Test
-    public void shouldFindSessionsByOpenedSessionCanvassesAndClosingTimeBeforeNowWhenLoadingMissClosedSessions() {
-        service.loadMissClosedSessions();
+    public void shouldAlwaysFindSessionOnDatabaseWhenReloadingSession() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId);
+        when(repository.findById(sessionId)).thenReturn(of(session));
+
+        service.loadVoteSession(sessionId);
+        service.reloadVoteSession(sessionId);
+
+        verify(repository, times(2)).findById(sessionId);
+    }
+
+    @Test
+    public void shouldLoadSessionFromDatabaseAgainWhenItWasClosedByItsBellAfterLoaded() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId);
+        when(repository.findById(sessionId)).thenReturn(of(session));
+
+        service.loadVoteSession(sessionId);
+        service.closeSession(session);
+        service.loadVoteSession(sessionId);
+
+        verify(repository, times(2)).findById(sessionId);
+    }
+
+    @Test
+    public void shouldTellWhetherSessionWasClosedByThisCallWhenClosingSession() {
+        VotingSession session = buildSession(randomUUID().toString());
+        when(repository.closeSession(session)).thenReturn(TRUE, FALSE);
+
+        assertThat(service.closeSession(session), is(true));
+        assertThat(service.closeSession(session), is(false));
+        verify(repository, never()).save(any(VotingSession.class));
+    }
+
+    @Test
+    public void shouldLoadSessionFromDatabaseAgainWhenItWasMarkedPublishedAfterLoaded() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId);
+        when(repository.findById(sessionId)).thenReturn(of(session));
+
+        service.loadVoteSession(sessionId);
+        service.markSessionsPublished(asList(sessionId));
+        service.loadVoteSession(sessionId);
 
-        verify(repository, only()).findByStatusAndClosingTimeBefore(eq(OPENED.toString()), timeCaptor.capture());
+        verify(repository, times(2)).findById(sessionId);
+    }
+
+    @Test
+    public void shouldCloseOverdueSessionsAtOnceWhenClosingMissClosedSessions() {
+        service.closeMissClosedSessions();
+
+        verify(repository, only()).closeOverdueSessions(any(LocalDateTime.class));
+    }
+
+    @Test
+    public void shouldCloseSessionsWithClosingTimeBeforeNowWhenClosingMissClosedSessions() {
+        service.closeMissClosedSessions();
+
+        verify(repository, only()).closeOverdueSessions(timeCaptor.capture());
         assertThat(timeCaptor.getValue(), hasProperty("hour", equalTo(now().getHour())));
         assertThat(timeCaptor.getValue(), hasProperty("minute", equalTo(now().getMinute())));
     }
 
     @Test
-    public void shouldReturnFoundSessionsByOpenedCanvassesAndClosingTimeWhenLoadingMissClosedSessions() {
-        String agendaId = randomUUID().toString();
-        String agendaTitle = "agenda-title-1";
-        Long deadlineMinutes = 5L;
-        VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
+    public void shouldReturnClosedSessionIdsWhenClosingMissClosedSessions() {
+        List<String> sessionIds = asList(randomUUID().toString(), randomUUID().toString());
+        when(repository.closeOverdueSessions(any(LocalDateTime.class))).thenReturn(sessionIds);
+
+        List<String> closedSessionIds = service.closeMissClosedSessions();
+
+        assertThat(closedSessionIds, equalTo(sessionIds));
+    }
 
+    @Test
+    public void shouldLoadSessionFromDatabaseAgainWhenItWasClosedAfterLoaded() {
         String sessionId = randomUUID().toString();
-        LocalDateTime openingTime = now().withNano(0);
-        LocalDateTime closingTime = openingTime.plusMinutes(deadlineMinutes);
-        VotingSession session = buildSession(sessionId, agenda, openingTime, closingTime, OPENED, FALSE);
+        when(repository.findById(sessionId)).thenReturn(of(buildSession(sessionId)));
+        when(repository.closeOverdueSessions(any(LocalDateTime.class))).thenReturn(asList(sessionId));
 
-        when(repository.findByStatusAndClosingTimeBefore(eq(OPENED.toString()), any(LocalDateTime.class)))
-                .thenReturn(asList(session));
+        service.loadVoteSession(sessionId);
+        service.closeMissClosedSessions();
+        service.loadVoteSession(sessionId);
 
-        List<VotingSession> sessions = service.loadMissClosedSessions();
-        assertThat(sessions.get(0), hasProperty("id", equalTo(sessionId)));
-        assertThat(sessions.get(0), hasProperty("agenda", hasProperty("id", equalTo(agendaId))));
-        assertThat(sessions.get(0), hasProperty("agenda", hasProperty("title", equalTo(agendaTitle))));
-        assertThat(sessions.get(0), hasProperty("openingTime", equalTo(openingTime)));
-        assertThat(sessions.get(0), hasProperty("closingTime", equalTo(closingTime)));
-        assertThat(sessions.get(0), hasProperty("status", equalTo(OPENED)));
-        assertThat(sessions.get(0), hasProperty("published", equalTo(FALSE)));
+        verify(repository, times(2)).findById(sessionId);
+    }
+
+    @Test
+    public void shouldWriteAllSessionReportsAtOnceWhenSavingSessionReports() {
+        List<VotingSession> sessions = asList(buildSession(randomUUID().toString()), buildSession(randomUUID().toString()));
+
+        service.saveSessionReports(sessions);
+
+        verify(repository, only()).writeReports(sessions);
     }
 
     @Test
     public void shouldLoadClosedSessionCanvassToPublishWhenLoadingClosedSessionsToPublish() {
-        service.loadClosedSessionsToPublish();
+        service.loadClosedSessionsToPublish(100);
 
-        verify(repository, only()).findByStatusAndPublished(eq(CLOSED.toString()), eq(FALSE));
+        verify(repository, only()).findByStatusAndPublishedAndReportFailedNot(eq(CLOSED.toString()), eq(FALSE), eq(TRUE), eq(PageRequest.of(0, 100)));
     }
 
     @Test
@@ -279,9 +371,9 @@ public class VotingSessionServiceTest {
         LocalDateTime openingTime = now().withNano(0);
         LocalDateTime closingTime = openingTime.plusMinutes(deadlineMinutes);
         VotingSession session = buildSession(sessionId, agenda, openingTime, closingTime, CLOSED, FALSE);
-        when(repository.findByStatusAndPublished(eq(CLOSED.toString()), eq(FALSE))).thenReturn(asList(session));
+        when(repository.findByStatusAndPublishedAndReportFailedNot(eq(CLOSED.toString()), eq(FALSE), eq(TRUE), any(Pageable.class))).thenReturn(asList(session));
 
-        List<VotingSession> sessions = service.loadClosedSessionsToPublish();
+        List<VotingSession> sessions = service.loadClosedSessionsToPublish(100);
 
         assertThat(sessions.get(0), hasProperty("id", equalTo(session.getId())));
         assertThat(sessions.get(0), hasProperty("agenda", hasProperty("id", equalTo(agendaId))));
@@ -292,6 +384,24 @@ public class VotingSessionServiceTest {
         assertThat(sessions.get(0), hasProperty("published", equalTo(FALSE)));
     }
 
+    @Test
+    public void shouldMarkAllPublishedSessionsAtOnceWhenCheckpointingPublishedSessions() {
+        List<String> sessionIds = asList(randomUUID().toString(), randomUUID().toString());
+
+        service.markSessionsPublished(sessionIds);
+
+        verify(repository, only()).markPublished(sessionIds);
+    }
+
+    @Test
+    public void shouldMarkAllFailedReportsAtOnceWhenDeadLetteringSessionReports() {
+        List<String> sessionIds = asList(randomUUID().toString(), randomUUID().toString());
+
+        service.markSessionReportsFailed(sessionIds);
+
+        verify(repository, only()).markReportFailed(sessionIds);
+    }
+
     private VotingAgenda buildAgenda() {
         return buildAgenda(randomUUID().toString());
     }
@@ -1,18 +1,25 @@
 package com.cooperative.assembly.v1.voting.session;
 
+import com.cooperative.assembly.config.ExecutorConfig;
+import com.cooperative.assembly.config.SchedulingConfig;
 import com.cooperative.assembly.builder.*;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvass;
 import com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassService;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.event.EventListener;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -22,13 +29,15 @@ import static java.util.Arrays.asList;
 import static java.time.LocalDateTime.now;
 import static java.util.UUID.randomUUID;
 import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
-@ContextConfiguration(classes = { VotingSessionTinklerbell.class, VotingSessionService.class })
+@ContextConfiguration(classes = { VotingSessionTinklerbell.class, VotingSessionService.class, VotingSessionCache.class, ExecutorConfig.class, SchedulingConfig.class, VotingSessionTinklerbellTest.ClosedSessionListener.class })
 public class VotingSessionTinklerbellTest {
 
     @Autowired
@@ -40,84 +49,198 @@ public class VotingSessionTinklerbellTest {
     @MockBean
     private VotingSessionCanvassService votingSessionCanvassService;
 
+    @SpyBean
+    private ClosedSessionListener closedSessionListener;
+
     @Captor
     private ArgumentCaptor<VotingSession> votingSessionCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<VotingSession>> votingSessionsCaptor;
+
+    @Before
+    public void setUp() {
+        when(votingSessionCanvassService.closeVotingSessionCanvass(any(VotingSession.class)))
+                .thenAnswer(invocation -> buildCanvass(invocation.getArgument(0)));
+    }
+
     @Test
-    public void shouldLoadMissOpenSessionsWhenRingingTheSessionBell() {
+    public void shouldCloseMissClosedSessionsAtOnceWhenRingingTheSessionBell() {
         tinklerbell.ringTheSessionBell();
 
-        verify(service, only()).loadMissClosedSessions();
+        verify(service, only()).closeMissClosedSessions();
     }
 
     @Test
-    public void shouldCloseAllSessionsThatHaveBeenLoadedAsMissCloseStatus() {
-        VotingSession session1 = buildSession();
-        VotingSession session2 = buildSession();
-        List<VotingSession> sessions = asList(session1, session2);
-        when(service.loadMissClosedSessions()).thenReturn(sessions);
+    public void shouldLoadClosedSessionsByIdsToFinalizeThemWhenSessionsWereClosed() {
+        List<String> sessionIds = asList(randomUUID().toString(), randomUUID().toString());
+        when(service.closeMissClosedSessions()).thenReturn(sessionIds);
 
         tinklerbell.ringTheSessionBell();
 
-        verify(service, times(2)).saveSession(any(VotingSession.class));
+        verify(service, times(1)).loadVoteSessions(sessionIds);
     }
 
     @Test
-    public void shouldCloseEachSessionThatHaveBeenLoadedAsMissCloseStatus() {
-        String agendaId = randomUUID().toString();
-        String agendaTitle = "agenda-title-1";
-        VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
+    public void shouldLoadClosedSessionsInPagesWhenManySessionsWereClosed() {
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            sessionIds.add(randomUUID().toString());
+        }
+        when(service.closeMissClosedSessions()).thenReturn(sessionIds);
 
-        String sessionId = randomUUID().toString();
-        LocalDateTime openingTime = now().withNano(0);
-        LocalDateTime closingTime = openingTime.plusMinutes(5);
-        VotingSession session = buildSession(sessionId, agenda, openingTime, closingTime, OPENED, FALSE);
-        when(service.loadMissClosedSessions()).thenReturn(asList(session));
+        tinklerbell.ringTheSessionBell();
+
+        verify(service, times(3)).loadVoteSessions(anyList());
+        verify(service, times(1)).loadVoteSessions(sessionIds.subList(200, 250));
+    }
+
+    @Test
+    public void shouldFlushAndLoadCanvassForAllSessionsThatHaveBeenClosed() {
+        VotingSession session1 = buildClosedSession(randomUUID().toString());
+        VotingSession session2 = buildClosedSession(randomUUID().toString());
+        List<String> sessionIds = asList(session1.getId(), session2.getId());
+        when(service.closeMissClosedSessions()).thenReturn(sessionIds);
+        when(service.loadVoteSessions(sessionIds)).thenReturn(asList(session1, session2));
 
         tinklerbell.ringTheSessionBell();
 
-        verify(service).saveSession(votingSessionCaptor.capture());
-        assertThat(votingSessionCaptor.getValue(), hasProperty("id", equalTo(sessionId)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("openingTime", equalTo(openingTime)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("closingTime", equalTo(closingTime)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("status", equalTo(CLOSED)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("published", equalTo(FALSE)));
+        verify(votingSessionCanvassService, times(1)).closeVotingSessionCanvass(session1);
+        verify(votingSessionCanvassService, times(1)).closeVotingSessionCanvass(session2);
     }
 
     @Test
-    public void shouldReloadCanvassForAllSessionsThatHaveBeenLoadedAsMissCloseStatus() {
-        VotingSession session1 = buildSession();
-        VotingSession session2 = buildSession();
-        List<VotingSession> sessions = asList(session1, session2);
-        when(service.loadMissClosedSessions()).thenReturn(sessions);
+    public void shouldWriteVotingReportsOfAllClosedSessionsAtOnce() {
+        VotingSession session1 = buildClosedSession(randomUUID().toString());
+        VotingSession session2 = buildClosedSession(randomUUID().toString());
+        List<String> sessionIds = asList(session1.getId(), session2.getId());
+        when(service.closeMissClosedSessions()).thenReturn(sessionIds);
+        when(service.loadVoteSessions(sessionIds)).thenReturn(asList(session1, session2));
 
         tinklerbell.ringTheSessionBell();
 
-        verify(votingSessionCanvassService, times(2))
-                .reloadVotingSessionCanvass(any(VotingSession.class));
+        verify(service, times(1)).saveSessionReports(votingSessionsCaptor.capture());
+        assertThat(votingSessionsCaptor.getValue(), hasSize(2));
+        assertThat(votingSessionsCaptor.getValue().get(0).getReport(), hasProperty("sessionId", equalTo(session1.getId())));
+        assertThat(votingSessionsCaptor.getValue().get(0).getReport(), hasProperty("status", equalTo(CLOSED)));
+        assertThat(votingSessionsCaptor.getValue().get(0).getReport(), hasProperty("totalVotes", equalTo(10)));
+        assertThat(votingSessionsCaptor.getValue().get(1).getReport(), hasProperty("sessionId", equalTo(session2.getId())));
     }
 
     @Test
-    public void shouldReloadCanvassForEachSessionThatHaveBeenLoadedAsMissCloseStatus() {
-        String agendaId = randomUUID().toString();
-        String agendaTitle = "agenda-title-1";
-        VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
+    public void shouldNeverCloseSessionsOneByOneWhenClosingMissClosedSessions() {
+        VotingSession session = buildClosedSession(randomUUID().toString());
+        when(service.closeMissClosedSessions()).thenReturn(asList(session.getId()));
+        when(service.loadVoteSessions(asList(session.getId()))).thenReturn(asList(session));
 
-        String sessionId = randomUUID().toString();
-        LocalDateTime openingTime = now().withNano(0);
-        LocalDateTime closingTime = openingTime.plusMinutes(5);
-        VotingSession session = buildSession(sessionId, agenda, openingTime, closingTime, OPENED, FALSE);
-        when(service.loadMissClosedSessions()).thenReturn(asList(session));
+        tinklerbell.ringTheSessionBell();
+
+        verify(service, never()).closeSession(any(VotingSession.class));
+    }
+
+    @Test
+    public void shouldStillAnnounceClosedSessionsToDispatchTheirReportsWhenVotingReportsCouldNotBeWritten() {
+        VotingSession session = buildClosedSession(randomUUID().toString());
+        when(service.closeMissClosedSessions()).thenReturn(asList(session.getId()));
+        when(service.loadVoteSessions(asList(session.getId()))).thenReturn(asList(session));
+        doThrow(new RuntimeException("unavailable")).when(service).saveSessionReports(anyList());
 
         tinklerbell.ringTheSessionBell();
 
-        verify(votingSessionCanvassService).reloadVotingSessionCanvass(votingSessionCaptor.capture());
+        verify(closedSessionListener, times(1)).onVotingSessionClosed(any(VotingSessionClosedEvent.class));
+    }
+
+    @Test
+    public void shouldKeepFinalizingOtherSessionsWhenOneSessionCanvassCouldNotBeFinalized() {
+        VotingSession failingSession = buildClosedSession(randomUUID().toString());
+        VotingSession session = buildClosedSession(randomUUID().toString());
+        List<String> sessionIds = asList(failingSession.getId(), session.getId());
+        when(service.closeMissClosedSessions()).thenReturn(sessionIds);
+        when(service.loadVoteSessions(sessionIds)).thenReturn(asList(failingSession, session));
+        when(votingSessionCanvassService.closeVotingSessionCanvass(failingSession)).thenThrow(new RuntimeException("unavailable"));
+
+        tinklerbell.ringTheSessionBell();
+
+        verify(service, times(1)).saveSessionReports(votingSessionsCaptor.capture());
+        assertThat(votingSessionsCaptor.getValue(), hasSize(1));
+        assertThat(votingSessionsCaptor.getValue().get(0), hasProperty("id", equalTo(session.getId())));
+    }
+
+    @Test
+    public void shouldCloseOpenedSessionRightAtClosingTimeWhenSessionIsOpened() {
+        String sessionId = randomUUID().toString();
+        LocalDateTime closingTime = now().plusNanos(200_000_000);
+        VotingSession session = buildSession(sessionId, buildAgenda(), now(), closingTime, OPENED, FALSE);
+        when(service.reloadVoteSession(sessionId)).thenReturn(session);
+
+        tinklerbell.onVotingSessionOpened(new VotingSessionOpenedEvent(session));
+
+        verify(service, timeout(2000)).closeSession(votingSessionCaptor.capture());
         assertThat(votingSessionCaptor.getValue(), hasProperty("id", equalTo(sessionId)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("openingTime", equalTo(openingTime)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("closingTime", equalTo(closingTime)));
         assertThat(votingSessionCaptor.getValue(), hasProperty("status", equalTo(CLOSED)));
-        assertThat(votingSessionCaptor.getValue(), hasProperty("published", equalTo(FALSE)));
+        assertThat(now().isBefore(closingTime), is(false));
+    }
+
+    @Test
+    public void shouldScheduleSessionBellForOpenedSessionsWhenApplicationStarts() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId, buildAgenda(), now().minusMinutes(5), now().minusSeconds(1), OPENED, FALSE);
+        when(service.loadOpenedSessions()).thenReturn(asList(session));
+        when(service.reloadVoteSession(sessionId)).thenReturn(session);
+
+        tinklerbell.scheduleOpenedSessionBells();
+
+        verify(votingSessionCanvassService, timeout(2000)).closeVotingSessionCanvass(session);
+        verify(service, timeout(2000)).closeSession(session);
+    }
+
+    @Test
+    public void shouldNotCloseSessionAgainWhenSessionWasAlreadyClosedBeforeItsBellRings() {
+        String sessionId = randomUUID().toString();
+        VotingSession openedSession = buildSession(sessionId, buildAgenda(), now().minusMinutes(5), now().minusSeconds(1), OPENED, FALSE);
+        VotingSession closedSession = buildSession(sessionId, buildAgenda(), now().minusMinutes(5), now().minusSeconds(1), CLOSED, FALSE);
+        when(service.reloadVoteSession(sessionId)).thenReturn(closedSession);
+
+        tinklerbell.onVotingSessionOpened(new VotingSessionOpenedEvent(openedSession));
+
+        verify(service, timeout(2000)).reloadVoteSession(sessionId);
+        verify(service, never()).closeSession(any(VotingSession.class));
+    }
+
+    @Test
+    public void shouldNeverAnnounceSessionClosingWhenAnotherCloserClosedItFirst() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId, buildAgenda(), now().minusMinutes(5), now().minusSeconds(1), OPENED, FALSE);
+        when(service.reloadVoteSession(sessionId)).thenReturn(session);
+        when(service.closeSession(session)).thenReturn(FALSE);
+
+        tinklerbell.onVotingSessionOpened(new VotingSessionOpenedEvent(session));
+
+        verify(service, timeout(2000)).closeSession(session);
+        verify(closedSessionListener, after(200).never()).onVotingSessionClosed(any(VotingSessionClosedEvent.class));
+    }
+
+    @Test
+    public void shouldAnnounceSessionClosingWhenItsBellClosedIt() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId, buildAgenda(), now().minusMinutes(5), now().minusSeconds(1), OPENED, FALSE);
+        when(service.reloadVoteSession(sessionId)).thenReturn(session);
+        when(service.closeSession(session)).thenReturn(TRUE);
+
+        tinklerbell.onVotingSessionOpened(new VotingSessionOpenedEvent(session));
 
+        verify(closedSessionListener, timeout(2000)).onVotingSessionClosed(any(VotingSessionClosedEvent.class));
+    }
+
+    private VotingSessionCanvass buildCanvass(VotingSession session) {
+        return VotingSessionCanvassBuilder.get()
+                .with(VotingSessionCanvass::setId, randomUUID().toString())
+                .with(VotingSessionCanvass::setTitle, session.getAgenda().getTitle())
+                .with(VotingSessionCanvass::setTotalVotes, 10)
+                .with(VotingSessionCanvass::setAffirmativeVotes, 8)
+                .with(VotingSessionCanvass::setNegativeVotes, 2)
+                .with(VotingSessionCanvass::setSession, session)
+                .build();
     }
 
     private VotingAgenda buildAgenda() {
@@ -154,4 +277,14 @@ public class VotingSessionTinklerbellTest {
                 .build();
     }
 
+    private VotingSession buildClosedSession(String sessionId) {
+        return buildSession(sessionId, buildAgenda(), now().minusMinutes(5), now().minusSeconds(1), CLOSED, FALSE);
+    }
+
+    static class ClosedSessionListener {
+
+        @EventListener
+        public void onVotingSessionClosed(final VotingSessionClosedEvent event) {
+        }
+    }
 }
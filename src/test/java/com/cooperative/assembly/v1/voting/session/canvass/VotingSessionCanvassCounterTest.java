@@ -0,0 +1,173 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = VotingSessionCanvassCounter.class)
+public class VotingSessionCanvassCounterTest {
+
+    @Autowired
+    private VotingSessionCanvassCounter counter;
+
+    @MockBean
+    private VotingSessionCanvassRepository repository;
+
+    @Captor
+    private ArgumentCaptor<Integer> affirmativeCaptor;
+
+    @Captor
+    private ArgumentCaptor<Integer> negativeCaptor;
+
+    @Test
+    public void shouldIncrementCanvassOnceWithAllCountedVotesWhenFlushingSession() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 1, 0);
+        counter.increment(sessionId, "agenda-title-1", 0, 1);
+        counter.increment(sessionId, "agenda-title-1", 2, 0);
+
+        counter.flush(sessionId);
+
+        verify(repository, only()).incrementVotes(sessionId, "agenda-title-1", 3, 1);
+    }
+
+    @Test
+    public void shouldOnlyIncrementVotesCountedSinceLastFlushWhenFlushingSessionAgain() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 2, 1);
+        counter.flush(sessionId);
+
+        counter.increment(sessionId, "agenda-title-1", 1, 0);
+        counter.flush(sessionId);
+
+        verify(repository).incrementVotes(sessionId, "agenda-title-1", 2, 1);
+        verify(repository).incrementVotes(sessionId, "agenda-title-1", 1, 0);
+    }
+
+    @Test
+    public void shouldNeverIncrementCanvassWhenThereIsNoVoteCountedSinceLastFlush() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 2, 1);
+        counter.flush(sessionId);
+
+        counter.flush(sessionId);
+        counter.flushAll();
+
+        verify(repository, times(1)).incrementVotes(anyString(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldKeepCountedVotesToNextFlushWhenCanvassIncrementFails() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 2, 1);
+        doThrow(new RuntimeException("mongo is unavailable")).doNothing()
+                .when(repository).incrementVotes(anyString(), anyString(), anyInt(), anyInt());
+
+        counter.flushAll();
+        counter.flushAll();
+
+        verify(repository, times(2)).incrementVotes(sessionId, "agenda-title-1", 2, 1);
+    }
+
+    @Test
+    public void shouldFlushRemainingVotesWhenReleasingSession() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 1, 1);
+
+        counter.release(sessionId);
+        counter.flushAll();
+
+        verify(repository, only()).incrementVotes(sessionId, "agenda-title-1", 1, 1);
+    }
+
+    @Test
+    public void shouldDiscardRemainingVotesWhenReleasedSessionCanNotBeFlushed() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 1, 1);
+        doThrow(new IllegalStateException("database unavailable")).doNothing()
+                .when(repository).incrementVotes(sessionId, "agenda-title-1", 1, 1);
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> counter.release(sessionId));
+        counter.flushAll();
+        counter.flushAll();
+
+        verify(repository, times(1)).incrementVotes(sessionId, "agenda-title-1", 1, 1);
+    }
+
+    @Test
+    public void shouldDropVotesCountedAfterSessionWasReleased() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 1, 0);
+        counter.release(sessionId);
+
+        counter.increment(sessionId, "agenda-title-1", 0, 1);
+        counter.flushAll();
+
+        verify(repository, only()).incrementVotes(sessionId, "agenda-title-1", 1, 0);
+    }
+
+    @Test
+    public void shouldIncrementEachCanvassShardWithItsOwnCountedVotesWhenFlushingShardedSession() {
+        String sessionId = randomUUID().toString();
+        counter.increment(sessionId, "agenda-title-1", 3, 0, 1, 0);
+        counter.increment(sessionId, "agenda-title-1", 3, 2, 0, 2);
+        counter.increment(sessionId, "agenda-title-1", 3, 0, 1, 0);
+
+        counter.flush(sessionId);
+
+        verify(repository).incrementShardVotes(sessionId, 0, 2, 0);
+        verify(repository).incrementShardVotes(sessionId, 2, 0, 2);
+        verify(repository, never()).incrementShardVotes(sessionId, 1, 0, 0);
+        verify(repository, never()).incrementVotes(anyString(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldNeverLoseVotesCountedConcurrentlyWithFlushes() throws Exception {
+        String sessionId = randomUUID().toString();
+        ExecutorService voters = newFixedThreadPool(8);
+        List<Runnable> votes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            votes.add(() -> {
+                for (int vote = 0; vote < 1000; vote++) {
+                    counter.increment(sessionId, "agenda-title-1", 1, 1);
+                }
+            });
+        }
+
+        votes.forEach(voters::execute);
+        for (int flush = 0; flush < 20; flush++) {
+            counter.flush(sessionId);
+        }
+        voters.shutdown();
+        assertThat(voters.awaitTermination(5, SECONDS), is(true));
+        counter.flush(sessionId);
+
+        verify(repository, atLeastOnce()).incrementVotes(eq(sessionId), eq("agenda-title-1"), affirmativeCaptor.capture(), negativeCaptor.capture());
+        assertThat(affirmativeCaptor.getAllValues().stream().mapToInt(Integer::intValue).sum(), equalTo(8000));
+        assertThat(negativeCaptor.getAllValues().stream().mapToInt(Integer::intValue).sum(), equalTo(8000));
+    }
+
+}
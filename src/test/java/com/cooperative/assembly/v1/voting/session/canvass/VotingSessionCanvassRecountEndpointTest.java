@@ -0,0 +1,64 @@
+package com.cooperative.assembly.v1.voting.session.canvass;
+
+import com.cooperative.assembly.builder.VotingSessionBuilder;
+import com.cooperative.assembly.error.exception.ValidationException;
+import com.cooperative.assembly.v1.voting.session.VotingSession;
+import com.cooperative.assembly.v1.voting.session.VotingSessionService;
+import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
+import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = { VotingSessionCanvassRecountEndpoint.class })
+public class VotingSessionCanvassRecountEndpointTest {
+
+    @Autowired
+    private VotingSessionCanvassRecountEndpoint endpoint;
+
+    @MockBean
+    private VotingSessionService votingSessionService;
+
+    @MockBean
+    private VotingSessionCanvassService votingSessionCanvassService;
+
+    @Test
+    public void shouldRecountCanvassOfClosedSessionReloadedFromDatabase() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId, CLOSED);
+        when(votingSessionService.reloadVoteSession(sessionId)).thenReturn(session);
+
+        endpoint.recount(sessionId);
+
+        verify(votingSessionCanvassService, only()).recountVotingSessionCanvass(session);
+    }
+
+    @Test
+    public void shouldThrowValidationExceptionAndNeverRecountCanvassWhenSessionIsStillOpened() {
+        String sessionId = randomUUID().toString();
+        when(votingSessionService.reloadVoteSession(sessionId)).thenReturn(buildSession(sessionId, OPENED));
+
+        assertThatExceptionOfType(ValidationException.class)
+                .isThrownBy(() -> endpoint.recount(sessionId));
+
+        verify(votingSessionCanvassService, never()).recountVotingSessionCanvass(any(VotingSession.class));
+    }
+
+    private VotingSession buildSession(String sessionId, VotingSessionStatus status) {
+        return VotingSessionBuilder.get()
+                .with(VotingSession::setId, sessionId)
+                .with(VotingSession::setStatus, status)
+                .build();
+    }
+
+}
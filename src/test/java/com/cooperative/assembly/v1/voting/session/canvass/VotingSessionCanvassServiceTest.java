@@ -4,13 +4,14 @@ import com.cooperative.assembly.builder.*;
 
 import com.cooperative.assembly.v1.vote.Vote;
 import com.cooperative.assembly.v1.vote.VoteChoice;
-import com.cooperative.assembly.v1.vote.VoteService;
+import com.cooperative.assembly.v1.vote.VoteSessionSnapshot;
 import com.cooperative.assembly.v1.voting.agenda.VotingAgenda;
 import com.cooperative.assembly.v1.voting.session.VotingSession;
 import com.cooperative.assembly.v1.voting.session.VotingSessionStatus;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -24,6 +25,7 @@ import static com.cooperative.assembly.v1.vote.VoteChoice.NO;
 import static com.cooperative.assembly.v1.vote.VoteChoice.YES;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.CLOSED;
 import static com.cooperative.assembly.v1.voting.session.VotingSessionStatus.OPENED;
+import static com.cooperative.assembly.v1.voting.session.canvass.VotingSessionCanvassShard.shardFor;
 import static java.lang.Boolean.FALSE;
 import static java.util.Optional.of;
 import static java.util.Arrays.asList;
@@ -32,6 +34,8 @@ import static java.util.UUID.randomUUID;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
@@ -45,7 +49,7 @@ public class VotingSessionCanvassServiceTest {
     private VotingSessionCanvassRepository repository;
 
     @MockBean
-    private VoteService voteService;
+    private VotingSessionCanvassCounter counter;
 
     @Captor
     private ArgumentCaptor<VotingSessionCanvass> canvassCaptor;
@@ -90,94 +94,150 @@ public class VotingSessionCanvassServiceTest {
     }
 
     @Test
-    public void shouldLoadVotesFromSessionWhenReloadingVotingSessionCanvass() {
-        VotingSession session = buildSession();
+    public void shouldNeverLoadVotesRetotalizeOrSaveCanvassWhenReloadingSessionCanvass() {
+        VotingSession session = buildSession(OPENED);
 
         service.reloadVotingSessionCanvass(session);
 
-        verify(voteService, only()).getSessionVotes(eq(session));
+        verify(repository, never()).countSessionVoteChoices(anyString());
+        verify(repository, never()).save(any(VotingSessionCanvass.class));
     }
 
     @Test
-    public void shouldNeverLoadVotesRetotalizeOrSaveResultsFromSessionWhenSessionStatusIsAlreadyClosed() {
-        VotingSession session = buildSession(CLOSED);
+    public void shouldReturnFoundCanvassWithCurrentTotalizersWhenReloadingSessionCanvass() {
+        String sessionId = randomUUID().toString();
+        VotingSession session = buildSession(sessionId, OPENED);
+        VotingSessionCanvass canvass = buildCanvass(session, 3, 2, 1);
+        when(repository.findBySessionId(sessionId)).thenReturn(of(canvass));
 
-        service.reloadVotingSessionCanvass(session);
+        VotingSessionCanvass reloadedCanvass = service.reloadVotingSessionCanvass(session);
 
-        verify(voteService, never()).getSessionVotes(eq(session));
-        verify(repository, never()).save(any(VotingSessionCanvass.class));
+        assertThat(reloadedCanvass, hasProperty("totalVotes", equalTo(3)));
+        assertThat(reloadedCanvass, hasProperty("affirmativeVotes", equalTo(2)));
+        assertThat(reloadedCanvass, hasProperty("negativeVotes", equalTo(1)));
     }
 
     @Test
-    public void shouldSaveSessionCanvassForVotingSessionWhenReloadingCanvassFromOpenedVotingSession() {
-        VotingSession session = buildSession(OPENED);
-        List<Vote> votes = asList(buildVoteYes(session));
-        when(voteService.getSessionVotes(session)).thenReturn(votes);
+    public void shouldReturnEmptyCanvassWhenReloadingSessionCanvassWithoutAnyVote() {
+        String agendaTitle = "agenda-title-1";
+        VotingSession session = buildSession(randomUUID().toString(), buildAgenda(randomUUID().toString(), agendaTitle));
 
-        service.reloadVotingSessionCanvass(session);
+        VotingSessionCanvass reloadedCanvass = service.reloadVotingSessionCanvass(session);
 
-        verify(repository, atLeastOnce()).save(any(VotingSessionCanvass.class));
+        assertThat(reloadedCanvass, hasProperty("title", equalTo(agendaTitle)));
+        assertThat(reloadedCanvass, hasProperty("totalVotes", equalTo(0)));
+        assertThat(reloadedCanvass, hasProperty("affirmativeVotes", equalTo(0)));
+        assertThat(reloadedCanvass, hasProperty("negativeVotes", equalTo(0)));
+    }
+
+    @Test
+    public void shouldIncrementSessionCanvassOnceBySessionWithAffirmativeAndNegativeChoices() {
+        String agendaTitle = "agenda-title-1";
+        VotingAgenda agenda = buildAgenda(randomUUID().toString(), agendaTitle);
+        VotingSession session = buildSession(randomUUID().toString(), agenda);
+        List<Vote> votes = asList(buildVoteYes(session), buildVoteNo(session), buildVoteYes(session));
+
+        service.incrementVotes(votes);
+
+        verify(counter, only()).increment(session.getId(), agendaTitle, 2, 1);
+        verify(repository, never()).incrementVotes(anyString(), anyString(), anyInt(), anyInt());
     }
 
     @Test
-    public void shouldSaveFoundSessionCanvassWithNewTotalVoteValues() {
+    public void shouldReleaseCountedVotesBeforeRecountingCanvassFromStoredVotesWhenClosingSessionCanvass() {
         String sessionId = randomUUID().toString();
         VotingSession session = buildSession(sessionId, OPENED);
-        VotingSessionCanvass canvass = buildCanvass(session, 2, 1, 0);
+        VotingSessionCanvass canvass = buildCanvass(session, 3, 2, 1);
         when(repository.findBySessionId(sessionId)).thenReturn(of(canvass));
+        when(repository.countSessionVoteChoices(sessionId)).thenReturn(asList(new VoteChoiceCount(YES, 3), new VoteChoiceCount(NO, 1)));
+        when(repository.save(any(VotingSessionCanvass.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        VotingSessionCanvass closedCanvass = service.closeVotingSessionCanvass(session);
+
+        InOrder inOrder = inOrder(counter, repository);
+        inOrder.verify(counter).release(sessionId);
+        inOrder.verify(repository).countSessionVoteChoices(sessionId);
+        inOrder.verify(repository).save(canvass);
+        assertThat(closedCanvass, hasProperty("totalVotes", equalTo(4)));
+        assertThat(closedCanvass, hasProperty("affirmativeVotes", equalTo(3)));
+        assertThat(closedCanvass, hasProperty("negativeVotes", equalTo(1)));
+    }
 
-        List<Vote> votes = asList(buildVoteYes(session));
-        when(voteService.getSessionVotes(session)).thenReturn(votes);
+    @Test
+    public void shouldStillRecountCanvassFromStoredVotesWhenCountedVotesCanNotBeFlushedOnClosing() {
+        VotingSession session = buildSession(OPENED);
+        doThrow(new IllegalStateException("database unavailable")).when(counter).release(session.getId());
+        when(repository.countSessionVoteChoices(session.getId())).thenReturn(asList(new VoteChoiceCount(YES, 2)));
+        when(repository.save(any(VotingSessionCanvass.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        service.reloadVotingSessionCanvass(session);
+        VotingSessionCanvass closedCanvass = service.closeVotingSessionCanvass(session);
 
-        verify(repository, atLeastOnce()).save(any(VotingSessionCanvass.class));
+        assertThat(closedCanvass, hasProperty("totalVotes", equalTo(2)));
     }
 
     @Test
-    public void shouldIncrementAffirmativeChoiceOnVotingSessionCanvassWhenChoosingVoteForSessionAgenda() {
-        String agendaId = randomUUID().toString();
-        String agendaTitle = "agenda-title-1";
-        VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
-
-        String sessionId = randomUUID().toString();
-        VotingSession session = buildSession(sessionId, agenda);
-
-        List<Vote> votes = asList(buildVoteYes(session));
-        when(voteService.getSessionVotes(session)).thenReturn(votes);
+    public void shouldRecountOnlyFoundChoicesWhenSessionHasNoNegativeVotes() {
+        VotingSession session = buildSession();
+        when(repository.countSessionVoteChoices(session.getId())).thenReturn(asList(new VoteChoiceCount(YES, 7)));
 
-        service.reloadVotingSessionCanvass(session);
+        service.recountVotingSessionCanvass(session);
 
         verify(repository, atLeastOnce()).save(canvassCaptor.capture());
-        assertThat(canvassCaptor.getValue(), hasProperty("title", equalTo(agendaTitle)));
-        assertThat(canvassCaptor.getValue(), hasProperty("totalVotes", equalTo(1)));
-        assertThat(canvassCaptor.getValue(), hasProperty("affirmativeVotes", equalTo(1)));
+        assertThat(canvassCaptor.getValue(), hasProperty("totalVotes", equalTo(7)));
+        assertThat(canvassCaptor.getValue(), hasProperty("affirmativeVotes", equalTo(7)));
         assertThat(canvassCaptor.getValue(), hasProperty("negativeVotes", equalTo(0)));
     }
 
     @Test
-    public void shouldIncrementNegativeChoiceOnVotingSessionCanvassWhenChoosingVoteForSessionAgenda() {
-        String agendaId = randomUUID().toString();
-        String agendaTitle = "agenda-title-1";
-        VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
+    public void shouldIncrementEachSessionCanvassWithItsOwnVotes() {
+        VotingSession session1 = buildSession();
+        VotingSession session2 = buildSession();
+        List<Vote> votes = asList(buildVoteYes(session1), buildVoteNo(session2), buildVoteNo(session2));
+
+        service.incrementVotes(votes);
 
+        verify(counter).increment(session1.getId(), session1.getAgenda().getTitle(), 1, 0);
+        verify(counter).increment(session2.getId(), session2.getAgenda().getTitle(), 0, 2);
+    }
+
+    @Test
+    public void shouldCountVoteChoicesFromSessionWhenRecountingVotingSessionCanvass() {
+        VotingSession session = buildSession();
+
+        service.recountVotingSessionCanvass(session);
+
+        verify(repository, atLeastOnce()).countSessionVoteChoices(session.getId());
+    }
+
+    @Test
+    public void shouldSaveSessionCanvassForVotingSessionWhenRecountingCanvass() {
+        VotingSession session = buildSession(OPENED);
+        when(repository.countSessionVoteChoices(session.getId())).thenReturn(asList(new VoteChoiceCount(YES, 1)));
+
+        service.recountVotingSessionCanvass(session);
+
+        verify(repository, atLeastOnce()).save(any(VotingSessionCanvass.class));
+    }
+
+    @Test
+    public void shouldReplaceFoundSessionCanvassTotalizersWithRecountedVotes() {
         String sessionId = randomUUID().toString();
-        VotingSession session = buildSession(sessionId, agenda);
+        VotingSession session = buildSession(sessionId, CLOSED);
+        VotingSessionCanvass canvass = buildCanvass(session, 2, 1, 1);
+        when(repository.findBySessionId(sessionId)).thenReturn(of(canvass));
 
-        List<Vote> votes = asList(buildVoteNo(session));
-        when(voteService.getSessionVotes(session)).thenReturn(votes);
+        when(repository.countSessionVoteChoices(sessionId)).thenReturn(asList(new VoteChoiceCount(YES, 1)));
 
-        service.reloadVotingSessionCanvass(session);
+        service.recountVotingSessionCanvass(session);
 
         verify(repository, atLeastOnce()).save(canvassCaptor.capture());
-        assertThat(canvassCaptor.getValue(), hasProperty("title", equalTo(agendaTitle)));
         assertThat(canvassCaptor.getValue(), hasProperty("totalVotes", equalTo(1)));
-        assertThat(canvassCaptor.getValue(), hasProperty("affirmativeVotes", equalTo(0)));
-        assertThat(canvassCaptor.getValue(), hasProperty("negativeVotes", equalTo(1)));
+        assertThat(canvassCaptor.getValue(), hasProperty("affirmativeVotes", equalTo(1)));
+        assertThat(canvassCaptor.getValue(), hasProperty("negativeVotes", equalTo(0)));
     }
 
     @Test
-    public void shouldIncrementMultipleChoicesOnVotingSessionCanvassWhenChoosingVoteForSessionAgenda() {
+    public void shouldRecountMultipleChoicesOnVotingSessionCanvass() {
         String agendaId = randomUUID().toString();
         String agendaTitle = "agenda-title-1";
         VotingAgenda agenda = buildAgenda(agendaId, agendaTitle);
@@ -185,16 +245,10 @@ public class VotingSessionCanvassServiceTest {
         String sessionId = randomUUID().toString();
         VotingSession session = buildSession(sessionId, agenda);
 
-        Vote voteYes1 = buildVoteYes(session);
-        Vote voteNo1 = buildVoteNo(session);
-        Vote voteYes2 = buildVoteYes(session);
-        Vote voteYes3 = buildVoteYes(session);
-        Vote voteYes4 = buildVoteYes(session);
-        Vote voteNo2 = buildVoteNo(session);
-        List<Vote> votes = asList(voteYes1, voteNo1, voteYes2, voteYes3, voteYes4, voteNo2);
-        when(voteService.getSessionVotes(session)).thenReturn(votes);
+        List<VoteChoiceCount> counts = asList(new VoteChoiceCount(YES, 4), new VoteChoiceCount(NO, 2));
+        when(repository.countSessionVoteChoices(sessionId)).thenReturn(counts);
 
-        service.reloadVotingSessionCanvass(session);
+        service.recountVotingSessionCanvass(session);
 
         verify(repository, atLeastOnce()).save(canvassCaptor.capture());
         assertThat(canvassCaptor.getValue(), hasProperty("title", equalTo(agenda.getTitle())));
@@ -203,6 +257,77 @@ public class VotingSessionCanvassServiceTest {
         assertThat(canvassCaptor.getValue(), hasProperty("negativeVotes", equalTo(2)));
     }
 
+    @Test
+    public void shouldIncrementEachCanvassShardWithVotesOfItsUsersWhenSessionIsSharded() {
+        VotingSession session = buildShardedSession(OPENED, 4);
+        String title = session.getAgenda().getTitle();
+        String userId1 = "30952418010";
+        String userId2 = "93187536001";
+        List<Vote> votes = asList(buildVote(randomUUID().toString(), userId1, session, YES),
+                buildVote(randomUUID().toString(), userId2, session, NO));
+
+        service.incrementVotes(votes);
+
+        if (shardFor(userId1, 4).equals(shardFor(userId2, 4))) {
+            verify(counter).increment(session.getId(), title, 4, shardFor(userId1, 4), 1, 1);
+        } else {
+            verify(counter).increment(session.getId(), title, 4, shardFor(userId1, 4), 1, 0);
+            verify(counter).increment(session.getId(), title, 4, shardFor(userId2, 4), 0, 1);
+        }
+        verify(counter, never()).increment(anyString(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldSumCanvassShardsWhenReloadingOpenedShardedSessionCanvass() {
+        VotingSession session = buildShardedSession(OPENED, 2);
+        when(repository.findSessionShards(session.getId()))
+                .thenReturn(asList(buildShard(session, 0, 3, 1), buildShard(session, 1, 2, 2)));
+
+        VotingSessionCanvass reloadedCanvass = service.reloadVotingSessionCanvass(session);
+
+        assertThat(reloadedCanvass, hasProperty("totalVotes", equalTo(8)));
+        assertThat(reloadedCanvass, hasProperty("affirmativeVotes", equalTo(5)));
+        assertThat(reloadedCanvass, hasProperty("negativeVotes", equalTo(3)));
+        verify(repository, never()).save(any(VotingSessionCanvass.class));
+    }
+
+    @Test
+    public void shouldNeverSumCanvassShardsWhenReloadingClosedShardedSessionCanvass() {
+        VotingSession session = buildShardedSession(CLOSED, 2);
+        when(repository.findBySessionId(session.getId())).thenReturn(of(buildCanvass(session, 8, 5, 3)));
+
+        VotingSessionCanvass reloadedCanvass = service.reloadVotingSessionCanvass(session);
+
+        assertThat(reloadedCanvass, hasProperty("totalVotes", equalTo(8)));
+        verify(repository, never()).findSessionShards(anyString());
+    }
+
+    @Test
+    public void shouldRecountStoredVotesIntoSessionCanvassWithoutSummingShardsWhenClosingShardedSessionCanvass() {
+        VotingSession session = buildShardedSession(OPENED, 2);
+        when(repository.countSessionVoteChoices(session.getId())).thenReturn(asList(new VoteChoiceCount(YES, 5), new VoteChoiceCount(NO, 3)));
+        when(repository.save(any(VotingSessionCanvass.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.closeVotingSessionCanvass(session);
+
+        verify(repository, never()).findSessionShards(anyString());
+        verify(repository).save(canvassCaptor.capture());
+        assertThat(canvassCaptor.getValue(), hasProperty("totalVotes", equalTo(8)));
+        assertThat(canvassCaptor.getValue(), hasProperty("affirmativeVotes", equalTo(5)));
+        assertThat(canvassCaptor.getValue(), hasProperty("negativeVotes", equalTo(3)));
+    }
+
+    private VotingSession buildShardedSession(VotingSessionStatus status, Integer canvassShards) {
+        VotingSession session = buildSession(status);
+        session.setCanvassShards(canvassShards);
+        return session;
+    }
+
+    private VotingSessionCanvassShard buildShard(VotingSession session, Integer shard, Integer affirmativeVotes, Integer negativeVotes) {
+        return new VotingSessionCanvassShard(VotingSessionCanvassShard.buildShardId(session.getId(), shard), session.getId(), shard,
+                affirmativeVotes + negativeVotes, affirmativeVotes, negativeVotes);
+    }
+
     private VotingAgenda buildAgenda() {
         return buildAgenda(randomUUID().toString());
     }
@@ -290,7 +415,8 @@ public class VotingSessionCanvassServiceTest {
         return VoteBuilder.get()
                 .with(Vote::setId, voteId)
                 .with(Vote::setUserId, userId)
-                .with(Vote::setSession, session)
+                .with(Vote::setSessionId, session.getId())
+                .with(Vote::setSession, VoteSessionSnapshot.buildSnapshot(session))
                 .with(Vote::setChoice, choice)
                 .build();
     }